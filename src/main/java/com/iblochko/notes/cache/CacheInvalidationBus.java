@@ -0,0 +1,19 @@
+package com.iblochko.notes.cache;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts cache evictions to the other application instances.
+ *
+ * <p>A message is a batch of keys. The {@link #CLEAR_ALL} key asks receivers to drop their
+ * whole cache, which is used when a node may have missed messages. Implementations never
+ * deliver a node's own messages back to it.
+ */
+public interface CacheInvalidationBus {
+    String CLEAR_ALL = "*";
+
+    void publish(Collection<String> keys);
+
+    void subscribe(Consumer<Collection<String>> listener);
+}
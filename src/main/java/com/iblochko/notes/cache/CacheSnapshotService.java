@@ -0,0 +1,204 @@
+package com.iblochko.notes.cache;
+
+import com.iblochko.notes.exception.ResourceNotFoundException;
+import com.iblochko.notes.service.NoteService;
+import com.iblochko.notes.service.TagService;
+import com.iblochko.notes.service.UserService;
+import com.iblochko.notes.util.CacheUtil;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Periodically writes the keys of the hottest cache entries to a local file and reloads them
+ * on startup, so a restarted instance does not send its whole read load to the database.
+ *
+ * <p>Only keys are stored: entries are reloaded through the services, which keeps the snapshot
+ * small and never serves data that changed while the instance was down. Each key is loaded in
+ * a read-only transaction, since the services initialize lazy associations of what they cache
+ * and warm-up threads have no request session. Runners finish before the application reports
+ * ready, so warm-up completes before traffic is accepted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.snapshot.enabled", havingValue = "true")
+public class CacheSnapshotService implements ApplicationRunner {
+    private final CacheUtil cacheUtil;
+    private final NoteService noteService;
+    private final TagService tagService;
+    private final UserService userService;
+    // Null where there is no database
+    private final TransactionTemplate warmupTransaction;
+
+    @Value("${cache.snapshot.file:cache/cache-snapshot.txt}")
+    private String snapshotFile;
+
+    @Value("${cache.snapshot.max-keys:100}")
+    private int maxKeys;
+
+    @Value("${cache.snapshot.warmup-threads:4}")
+    private int warmupThreads;
+
+    @Value("${cache.snapshot.warmup-timeout-ms:30000}")
+    private long warmupTimeoutMs;
+
+    public CacheSnapshotService(CacheUtil cacheUtil, NoteService noteService,
+                                TagService tagService, UserService userService,
+                                ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.cacheUtil = cacheUtil;
+        this.noteService = noteService;
+        this.tagService = tagService;
+        this.userService = userService;
+        this.warmupTransaction =
+                CacheUtil.readOnlyTransaction(transactionManager.getIfAvailable());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Path path = Paths.get(snapshotFile);
+        if (!Files.exists(path)) {
+            log.info("No cache snapshot found at {}", path);
+            return;
+        }
+        try {
+            List<String> keys = Files.readAllLines(path, StandardCharsets.UTF_8);
+            warm(keys);
+        } catch (IOException e) {
+            log.warn("Could not read cache snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cache.snapshot.interval-ms:300000}",
+            initialDelayString = "${cache.snapshot.interval-ms:300000}")
+    public void snapshot() {
+        List<String> keys = cacheUtil.hottestKeys(maxKeys);
+        if (keys.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(snapshotFile);
+        Path temp = null;
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            temp = Files.createTempFile(parent, "cache-snapshot", ".tmp");
+            Files.write(temp, keys, StandardCharsets.UTF_8);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved cache snapshot with {} keys to {}", keys.size(), path);
+        } catch (IOException e) {
+            log.warn("Could not write cache snapshot {}: {}", path, e.getMessage());
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    void warm(List<String> keys) {
+        List<Callable<Void>> loads = new ArrayList<>();
+        for (String key : keys) {
+            if (!key.isBlank()) {
+                loads.add(() -> {
+                    if (warmupTransaction != null) {
+                        warmupTransaction.executeWithoutResult(status -> load(key.trim()));
+                    } else {
+                        load(key.trim());
+                    }
+                    return null;
+                });
+            }
+        }
+        if (loads.isEmpty()) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, warmupThreads));
+        try {
+            int warmed = 0;
+            List<Future<Void>> results = executor.invokeAll(loads, warmupTimeoutMs,
+                    TimeUnit.MILLISECONDS);
+            for (Future<Void> result : results) {
+                if (isSuccessful(result)) {
+                    warmed++;
+                }
+            }
+            log.info("Warmed cache with {} of {} snapshot keys", warmed, loads.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void load(String key) {
+        if (key.startsWith("note_json_")) {
+            noteService.getNoteJson(Long.parseLong(key.substring("note_json_".length())));
+        } else if (key.startsWith("note_")) {
+            noteService.findNoteById(Long.parseLong(key.substring("note_".length())));
+        } else if (key.startsWith("tag_")) {
+            tagService.getTagById(Long.parseLong(key.substring("tag_".length())));
+        } else if (key.startsWith("user_")) {
+            userService.getUserByUsername(key.substring("user_".length()));
+        }
+    }
+
+    private static boolean isSuccessful(Future<Void> result) {
+        if (result.isCancelled()) {
+            return false;
+        }
+        try {
+            result.get();
+            return true;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ResourceNotFoundException) {
+                // Entities deleted while the instance was down are simply skipped
+                log.info("Skipped snapshot key: {}", e.getCause().getMessage());
+            } else {
+                log.warn("Could not warm snapshot key", e.getCause());
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Removes the temp file of a snapshot that failed before it was moved into place.
+     */
+    private static void deleteQuietly(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", temp, e.getMessage());
+        }
+    }
+}
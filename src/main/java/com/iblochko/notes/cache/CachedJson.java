@@ -0,0 +1,35 @@
+package com.iblochko.notes.cache;
+
+/**
+ * Pre-serialized JSON response body, optionally with a gzip-compressed copy.
+ */
+public final class CachedJson {
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+
+    public CachedJson(byte[] json, byte[] gzip, String etag) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * Gzip-compressed body, or {@code null} when the body is too small to be worth it.
+     */
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public int size() {
+        return json.length + (gzip != null ? gzip.length : 0);
+    }
+}
@@ -0,0 +1,81 @@
+package com.iblochko.notes.cache;
+
+import com.iblochko.notes.model.Note;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Heap-tier cache entry for a note. Small notes are kept as is; for large ones the heap keeps
+ * only the metadata and a handle, while the content bytes live in {@link OffHeapContentStore}.
+ */
+public final class CachedNote implements ReleasableCacheValue {
+    private final Note metadata;
+    private final long contentHandle;
+    private final OffHeapContentStore contentStore;
+
+    private CachedNote(Note metadata, long contentHandle, OffHeapContentStore contentStore) {
+        this.metadata = metadata;
+        this.contentHandle = contentHandle;
+        this.contentStore = contentStore;
+    }
+
+    public static CachedNote of(Note note, OffHeapContentStore contentStore) {
+        String content = note.getContent();
+        if (content == null || contentStore == null) {
+            return new CachedNote(note, OffHeapContentStore.NO_HANDLE, contentStore);
+        }
+
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (!contentStore.accepts(bytes.length)) {
+            return new CachedNote(note, OffHeapContentStore.NO_HANDLE, contentStore);
+        }
+        long handle = contentStore.put(bytes);
+        if (handle == OffHeapContentStore.NO_HANDLE) {
+            return new CachedNote(note, OffHeapContentStore.NO_HANDLE, contentStore);
+        }
+        return new CachedNote(copyOf(note, null), handle, contentStore);
+    }
+
+    /**
+     * Note fields without the content when the content is kept off-heap.
+     */
+    public Note getMetadata() {
+        return metadata;
+    }
+
+    public boolean isOffHeap() {
+        return contentHandle != OffHeapContentStore.NO_HANDLE;
+    }
+
+    /**
+     * Returns the full note, or {@code null} if its off-heap content has already been evicted.
+     */
+    public Note toNote() {
+        if (!isOffHeap()) {
+            return metadata;
+        }
+        byte[] content = contentStore.get(contentHandle);
+        if (content == null) {
+            return null;
+        }
+        return copyOf(metadata, new String(content, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void release() {
+        if (isOffHeap()) {
+            contentStore.remove(contentHandle);
+        }
+    }
+
+    private static Note copyOf(Note source, String content) {
+        Note note = new Note();
+        note.setId(source.getId());
+        note.setTitle(source.getTitle());
+        note.setContent(content);
+        note.setCreatedAt(source.getCreatedAt());
+        note.setUpdatedAt(source.getUpdatedAt());
+        note.setUser(source.getUser());
+        note.setTags(source.getTags());
+        return note;
+    }
+}
@@ -0,0 +1,46 @@
+package com.iblochko.notes.cache;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-JVM bus: every instance delivers to all other instances created in the same JVM.
+ * Enough for a single node and for tests that start several application contexts.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.bus", havingValue = "local",
+        matchIfMissing = true)
+public class InMemoryInvalidationBus implements CacheInvalidationBus {
+    private static final List<InMemoryInvalidationBus> BUSES = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<Collection<String>>> listeners = new CopyOnWriteArrayList<>();
+
+    public InMemoryInvalidationBus() {
+        BUSES.add(this);
+    }
+
+    @Override
+    public void publish(Collection<String> keys) {
+        List<String> batch = List.copyOf(keys);
+        for (InMemoryInvalidationBus bus : BUSES) {
+            if (bus != this) {
+                bus.listeners.forEach(listener -> listener.accept(batch));
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Collection<String>> listener) {
+        listeners.add(listener);
+    }
+
+    @PreDestroy
+    public void close() {
+        BUSES.remove(this);
+    }
+}
@@ -0,0 +1,342 @@
+package com.iblochko.notes.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Concurrent map from primitive {@code long} keys to values, so lookups by entity id neither
+ * box the id nor build a key string.
+ *
+ * <p>Keys are spread over segments, each an open-addressing table with linear probing guarded
+ * by a {@link StampedLock}. Reads are optimistic and only take the read lock when they overlap
+ * a write to the same segment.
+ */
+public final class LongKeyedStore<V> {
+    private static final int SEGMENT_BITS = 4;
+    private static final int INITIAL_SLOTS = 16;
+
+    private final Segment<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public LongKeyedStore() {
+        segments = (Segment<V>[]) new Segment<?>[1 << SEGMENT_BITS];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    public V get(long key) {
+        long hash = hash(key);
+        return segmentFor(hash).get(key, (int) hash);
+    }
+
+    /**
+     * Stores the value and returns the one it replaced, or {@code null}.
+     */
+    public V put(long key, V value) {
+        long hash = hash(key);
+        return segmentFor(hash).put(key, (int) hash, value);
+    }
+
+    public V remove(long key) {
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, (int) hash, null);
+    }
+
+    /**
+     * Removes the key only while it is mapped to the given value.
+     */
+    public boolean remove(long key, V expected) {
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, (int) hash, expected) != null;
+    }
+
+    /**
+     * Replaces the value only while the key is mapped to {@code expected}.
+     */
+    public boolean replace(long key, V expected, V value) {
+        long hash = hash(key);
+        return segmentFor(hash).replace(key, (int) hash, expected, value);
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public void forEach(Consumer<? super V> action) {
+        for (Segment<V> segment : segments) {
+            segment.forEach(action);
+        }
+    }
+
+    /**
+     * Removes every value, handing each one to {@code onRemoved}.
+     */
+    public void clear(Consumer<? super V> onRemoved) {
+        for (Segment<V> segment : segments) {
+            segment.clear(onRemoved);
+        }
+    }
+
+    /**
+     * Samples up to {@code samples} values, starting at a random segment, and removes the one
+     * with the lowest score, like Redis' approximated LRU. Returns the removed value, or
+     * {@code null} if the store is empty.
+     */
+    public V removeLowest(int samples, ToLongFunction<? super V> score) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Candidate<V> lowest = new Candidate<>();
+            int start = ThreadLocalRandom.current().nextInt(segments.length);
+            int seen = 0;
+            for (int i = 0; i < segments.length && seen < samples; i++) {
+                seen += segments[(start + i) & (segments.length - 1)]
+                        .sample(samples - seen, score, lowest);
+            }
+            if (lowest.value == null) {
+                return null;
+            }
+            // A concurrent write may have replaced the candidate meanwhile; sample again
+            if (remove(lowest.key, lowest.value)) {
+                return lowest.value;
+            }
+        }
+        return null;
+    }
+
+    private Segment<V> segmentFor(long hash) {
+        return segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+    }
+
+    private static long hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static final class Candidate<V> {
+        private long key;
+        private V value;
+        private long score;
+
+        private void offer(long key, V value, long score) {
+            if (this.value == null || score < this.score) {
+                this.key = key;
+                this.value = value;
+                this.score = score;
+            }
+        }
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        private final Object[] values;
+
+        private Table(int slots) {
+            keys = new long[slots];
+            values = new Object[slots];
+        }
+    }
+
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table = new Table(INITIAL_SLOTS);
+        private volatile int size;
+
+        private V get(long key, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            V value = find(table, key, hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    value = find(table, key, hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return value;
+        }
+
+        private V put(long key, int hash, V value) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                int slot = slotOf(current, key, hash);
+                @SuppressWarnings("unchecked")
+                V previous = (V) current.values[slot];
+                if (previous == null) {
+                    current.keys[slot] = key;
+                    size++;
+                }
+                current.values[slot] = value;
+                if (size * 2 > current.keys.length) {
+                    resize(current);
+                }
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private V remove(long key, int hash, V expected) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                int slot = slotOf(current, key, hash);
+                @SuppressWarnings("unchecked")
+                V previous = (V) current.values[slot];
+                if (previous == null || (expected != null && previous != expected)) {
+                    return null;
+                }
+                delete(current, slot);
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private boolean replace(long key, int hash, V expected, V value) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                int slot = slotOf(current, key, hash);
+                if (current.values[slot] != expected || expected == null) {
+                    return false;
+                }
+                current.values[slot] = value;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void forEach(Consumer<? super V> action) {
+            long stamp = lock.readLock();
+            try {
+                for (Object value : table.values) {
+                    if (value != null) {
+                        action.accept((V) value);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void clear(Consumer<? super V> onRemoved) {
+            Table old;
+            long stamp = lock.writeLock();
+            try {
+                old = table;
+                table = new Table(INITIAL_SLOTS);
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            for (Object value : old.values) {
+                if (value != null) {
+                    onRemoved.accept((V) value);
+                }
+            }
+        }
+
+        /**
+         * Offers up to {@code max} values, from a random slot on, to the candidate and returns
+         * how many were offered.
+         */
+        @SuppressWarnings("unchecked")
+        private int sample(int max, ToLongFunction<? super V> score, Candidate<V> lowest) {
+            long stamp = lock.readLock();
+            try {
+                Table current = table;
+                int mask = current.keys.length - 1;
+                int slot = ThreadLocalRandom.current().nextInt(current.keys.length);
+                int seen = 0;
+                for (int scanned = 0; seen < max && scanned < current.keys.length;
+                        scanned++, slot = (slot + 1) & mask) {
+                    V value = (V) current.values[slot];
+                    if (value != null) {
+                        seen++;
+                        lowest.offer(current.keys[slot], value, score.applyAsLong(value));
+                    }
+                }
+                return seen;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> V find(Table table, long key, int hash) {
+            long[] keys = table.keys;
+            Object[] values = table.values;
+            int mask = keys.length - 1;
+            // Bounded, so a read racing with a write can never spin; validate() discards it
+            for (int i = 0, slot = hash & mask; i < keys.length; i++, slot = (slot + 1) & mask) {
+                Object value = values[slot];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[slot] == key) {
+                    return (V) value;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Slot holding the key, or the empty slot where it would be inserted.
+         */
+        private static int slotOf(Table table, long key, int hash) {
+            int mask = table.keys.length - 1;
+            int slot = hash & mask;
+            while (table.values[slot] != null && table.keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void delete(Table current, int slot) {
+            int mask = current.keys.length - 1;
+            int hole = slot;
+            // Backward-shift deletion keeps probe chains intact without tombstones
+            for (int next = (hole + 1) & mask; current.values[next] != null;
+                    next = (next + 1) & mask) {
+                int home = (int) hash(current.keys[next]) & mask;
+                boolean movable = hole <= next
+                        ? home <= hole || home > next
+                        : home <= hole && home > next;
+                if (movable) {
+                    current.keys[hole] = current.keys[next];
+                    current.values[hole] = current.values[next];
+                    hole = next;
+                }
+            }
+            current.keys[hole] = 0L;
+            current.values[hole] = null;
+            size--;
+        }
+
+        private void resize(Table current) {
+            Table resized = new Table(current.keys.length * 2);
+            for (int i = 0; i < current.keys.length; i++) {
+                if (current.values[i] != null) {
+                    int slot = slotOf(resized, current.keys[i], (int) hash(current.keys[i]));
+                    resized.keys[slot] = current.keys[i];
+                    resized.values[slot] = current.values[i];
+                }
+            }
+            table = resized;
+        }
+    }
+}
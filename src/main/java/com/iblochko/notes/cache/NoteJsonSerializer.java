@@ -0,0 +1,59 @@
+package com.iblochko.notes.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iblochko.notes.model.Note;
+import com.iblochko.notes.util.ETagUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serializes notes once into the bytes written for {@code GET /notes/{id}}, using the same
+ * {@link ObjectMapper} as the MVC message converters.
+ */
+@Component
+public class NoteJsonSerializer {
+    private final ObjectMapper objectMapper;
+    private final int maxCachedBytes;
+    private final int gzipMinBytes;
+
+    public NoteJsonSerializer(ObjectMapper objectMapper,
+                              @Value("${cache.json.max-bytes:16384}") int maxCachedBytes,
+                              @Value("${cache.json.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this.objectMapper = objectMapper;
+        this.maxCachedBytes = maxCachedBytes;
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    public CachedJson serialize(Note note) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(note);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize note " + note.getId(), e);
+        }
+        byte[] gzip = json.length >= gzipMinBytes ? gzip(json) : null;
+        return new CachedJson(json, gzip, ETagUtil.forNote(note));
+    }
+
+    /**
+     * Large bodies are not kept on the heap; their notes live in the off-heap tier instead.
+     */
+    public boolean isCacheable(CachedJson json) {
+        return json.size() <= maxCachedBytes;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,178 @@
+package com.iblochko.notes.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Second cache tier that keeps large byte payloads outside the Java heap.
+ *
+ * <p>Memory is reserved as direct {@link ByteBuffer} slabs that are cut into fixed-size chunks.
+ * A payload occupies as many chunks as it needs, so freeing one never fragments the slabs.
+ * When the budget is exhausted the least recently read payloads are dropped.
+ */
+@Slf4j
+@Component
+public class OffHeapContentStore {
+    public static final long NO_HANDLE = -1L;
+
+    private final int chunkBytes;
+    private final int chunksPerSlab;
+    private final int maxSlabs;
+    private final int thresholdBytes;
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final int[] freeChunks;
+    private int freeCount;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long nextHandle;
+    private long usedBytes;
+
+    public OffHeapContentStore(
+            @Value("${cache.off-heap.max-bytes:268435456}") long maxBytes,
+            @Value("${cache.off-heap.slab-bytes:16777216}") int slabBytes,
+            @Value("${cache.off-heap.chunk-bytes:65536}") int chunkBytes,
+            @Value("${cache.off-heap.threshold-bytes:16384}") int thresholdBytes) {
+        if (chunkBytes <= 0 || slabBytes < chunkBytes) {
+            throw new IllegalArgumentException("Slab size must be at least one chunk");
+        }
+        this.chunkBytes = chunkBytes;
+        this.chunksPerSlab = slabBytes / chunkBytes;
+        this.maxSlabs = (int) Math.max(0, maxBytes / ((long) chunksPerSlab * chunkBytes));
+        this.thresholdBytes = thresholdBytes;
+        this.freeChunks = new int[maxSlabs * chunksPerSlab];
+    }
+
+    /**
+     * Tells whether a payload of this size belongs in the off-heap tier.
+     */
+    public boolean accepts(int length) {
+        return length >= thresholdBytes && chunksFor(length) <= freeChunks.length;
+    }
+
+    /**
+     * Copies the payload into off-heap memory and returns its handle, or {@link #NO_HANDLE}
+     * if it cannot fit in the configured budget.
+     */
+    public synchronized long put(byte[] data) {
+        int needed = chunksFor(data.length);
+        if (needed > freeChunks.length) {
+            return NO_HANDLE;
+        }
+        while (freeCount < needed) {
+            if (slabs.size() < maxSlabs) {
+                allocateSlab();
+            } else {
+                evictEldest();
+            }
+        }
+
+        int[] chunks = new int[needed];
+        for (int i = 0; i < needed; i++) {
+            int chunk = freeChunks[--freeCount];
+            chunks[i] = chunk;
+            int offset = i * chunkBytes;
+            int length = Math.min(chunkBytes, data.length - offset);
+            slabOf(chunk).put(offsetOf(chunk), data, offset, length);
+        }
+
+        long handle = nextHandle++;
+        entries.put(handle, new Entry(chunks, data.length));
+        usedBytes += data.length;
+        return handle;
+    }
+
+    /**
+     * Copies the payload back onto the heap, or returns {@code null} if it has been evicted.
+     */
+    public synchronized byte[] get(long handle) {
+        Entry entry = entries.get(handle);
+        if (entry == null) {
+            return null;
+        }
+        byte[] data = new byte[entry.length];
+        for (int i = 0; i < entry.chunks.length; i++) {
+            int chunk = entry.chunks[i];
+            int offset = i * chunkBytes;
+            int length = Math.min(chunkBytes, entry.length - offset);
+            slabOf(chunk).get(offsetOf(chunk), data, offset, length);
+        }
+        return data;
+    }
+
+    public synchronized void remove(long handle) {
+        Entry entry = entries.remove(handle);
+        if (entry != null) {
+            release(entry);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.values().forEach(this::release);
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized long reservedBytes() {
+        return (long) slabs.size() * chunksPerSlab * chunkBytes;
+    }
+
+    private void allocateSlab() {
+        int slabIndex = slabs.size();
+        slabs.add(ByteBuffer.allocateDirect(chunksPerSlab * chunkBytes));
+        for (int i = chunksPerSlab - 1; i >= 0; i--) {
+            freeChunks[freeCount++] = slabIndex * chunksPerSlab + i;
+        }
+        log.info("Allocated off-heap slab #{} ({} bytes)", slabIndex, chunksPerSlab * chunkBytes);
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        Map.Entry<Long, Entry> victim = eldest.next();
+        eldest.remove();
+        release(victim.getValue());
+        log.info("Evicted off-heap content handle: {}", victim.getKey());
+    }
+
+    private void release(Entry entry) {
+        for (int chunk : entry.chunks) {
+            freeChunks[freeCount++] = chunk;
+        }
+        usedBytes -= entry.length;
+    }
+
+    private int chunksFor(int length) {
+        return Math.max(1, (length + chunkBytes - 1) / chunkBytes);
+    }
+
+    private ByteBuffer slabOf(int chunk) {
+        return slabs.get(chunk / chunksPerSlab);
+    }
+
+    private int offsetOf(int chunk) {
+        return (chunk % chunksPerSlab) * chunkBytes;
+    }
+
+    private static final class Entry {
+        private final int[] chunks;
+        private final int length;
+
+        private Entry(int[] chunks, int length) {
+            this.chunks = chunks;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.iblochko.notes.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidation bus on top of Postgres {@code LISTEN/NOTIFY}.
+ *
+ * <p>Each node listens on one connection and publishes from a background thread through
+ * another, both opened outside the pool: the listener holds its connection for the life of
+ * the application, and publishing after a commit must not wait for a pooled connection while
+ * the caller may still hold one. A notification is never tied to a caller's transaction.
+ * A payload is {@code <node id>|key\nkey...}, split to stay below the 8000 byte limit.
+ *
+ * <p>After reconnecting the listener asks the local cache to clear, because notifications
+ * sent while it was disconnected are lost. Likewise, when batches had to be dropped because
+ * the outbox was full, the next send asks the other nodes to clear.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.bus", havingValue = "postgres")
+public class PostgresInvalidationBus implements CacheInvalidationBus {
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final int OUTBOX_CAPACITY = 10_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<Collection<String>>> listeners = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Collection<String>> outbox =
+            new ArrayBlockingQueue<>(OUTBOX_CAPACITY);
+    private final AtomicBoolean dropped = new AtomicBoolean();
+    private volatile boolean running;
+    private Thread listenerThread;
+    private Thread publisherThread;
+
+    @Value("${cache.invalidation.channel:cache_invalidation}")
+    private String channel;
+
+    @Value("${cache.invalidation.poll-timeout-ms:500}")
+    private int pollTimeoutMs;
+
+    @Value("${cache.invalidation.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+
+    @Autowired
+    public PostgresInvalidationBus(DataSourceProperties dataSource) {
+        this(dataSource.determineUrl(), dataSource.determineUsername(),
+                dataSource.determinePassword());
+    }
+
+    PostgresInvalidationBus(String url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("Invalid cache invalidation channel: " + channel);
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        publisherThread = new Thread(this::publishQueued, "cache-invalidation-publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : new Thread[] {listenerThread, publisherThread}) {
+            if (thread != null) {
+                thread.interrupt();
+                thread.join(pollTimeoutMs * 2L);
+            }
+        }
+    }
+
+    /**
+     * Queues the keys for the publisher thread and returns at once.
+     */
+    @Override
+    public void publish(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (!outbox.offer(List.copyOf(keys))) {
+            dropped.set(true);
+            log.warn("Cache invalidation outbox is full, dropped {} keys", keys.size());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Collection<String>> listener) {
+        listeners.add(listener);
+    }
+
+    List<String> payloads(Collection<String> keys) {
+        List<String> payloads = new ArrayList<>();
+        String prefix = nodeId + "|";
+        StringBuilder payload = new StringBuilder(prefix);
+        int bytes = prefix.length();
+        for (String key : keys) {
+            int keyBytes = key.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (payload.length() > prefix.length() && bytes + keyBytes > MAX_PAYLOAD_BYTES) {
+                payloads.add(payload.toString());
+                payload.setLength(prefix.length());
+                bytes = prefix.length();
+            }
+            if (payload.length() > prefix.length()) {
+                payload.append('\n');
+            }
+            payload.append(key);
+            bytes += keyBytes;
+        }
+        payloads.add(payload.toString());
+        return payloads;
+    }
+
+    int queued() {
+        return outbox.size();
+    }
+
+    void deliver(String payload) {
+        int separator = payload.indexOf('|');
+        if (separator < 0 || nodeId.equals(payload.substring(0, separator))) {
+            return;
+        }
+        List<String> keys = Arrays.asList(payload.substring(separator + 1).split("\n"));
+        listeners.forEach(listener -> listener.accept(keys));
+    }
+
+    private void publishQueued() {
+        Connection connection = null;
+        Collection<String> keys = null;
+        try {
+            while (running) {
+                if (keys == null) {
+                    keys = outbox.poll(pollTimeoutMs, TimeUnit.MILLISECONDS);
+                    if (keys == null) {
+                        continue;
+                    }
+                }
+                try {
+                    if (connection == null) {
+                        connection = connect();
+                    }
+                    if (dropped.compareAndSet(true, false)) {
+                        sendClearAll(connection);
+                    }
+                    send(connection, keys);
+                    keys = null;
+                } catch (SQLException e) {
+                    log.warn("Could not publish cache invalidation for {} keys: {}",
+                            keys.size(), e.getMessage());
+                    closeQuietly(connection);
+                    connection = null;
+                    // The batch is kept and retried after the delay
+                    Thread.sleep(reconnectDelayMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeQuietly(connection);
+        }
+    }
+
+    private void sendClearAll(Connection connection) throws SQLException {
+        try {
+            send(connection, List.of(CLEAR_ALL));
+        } catch (SQLException e) {
+            dropped.set(true);
+            throw e;
+        }
+    }
+
+    private void send(Connection connection, Collection<String> keys) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT pg_notify(?, ?)")) {
+            for (String payload : payloads(keys)) {
+                statement.setString(1, channel);
+                statement.setString(2, payload);
+                statement.execute();
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, username, password);
+        connection.setAutoCommit(true);
+        return connection;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Could not close cache invalidation connection: {}", e.getMessage());
+        }
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = connect()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (reconnecting) {
+                    listeners.forEach(listener -> listener.accept(List.of(CLEAR_ALL)));
+                }
+                log.info("Listening for cache invalidations on channel {}", channel);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation listener lost its connection: {}", e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
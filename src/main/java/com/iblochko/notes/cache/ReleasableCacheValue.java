@@ -0,0 +1,9 @@
+package com.iblochko.notes.cache;
+
+/**
+ * Cache value that holds resources outside the heap entry itself. {@code CacheUtil} calls
+ * {@link #release()} once the value is evicted, replaced or cleared.
+ */
+public interface ReleasableCacheValue {
+    void release();
+}
@@ -0,0 +1,53 @@
+package com.iblochko.notes.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+    /**
+     * Time to live per cache region, such as {@code note} or {@code note_json}.
+     * Regions without an entry never expire.
+     */
+    private Map<String, Duration> ttl = new HashMap<>();
+
+    /**
+     * Fraction of the TTL after which a read triggers a background reload of the entry.
+     */
+    private double refreshAheadFactor = 0.8;
+
+    private int refreshThreads = 2;
+
+    private int refreshQueueCapacity = 1000;
+
+    /**
+     * Sizing per region (key namespace). Namespaces without an entry get the defaults.
+     */
+    private Map<String, Region> regions = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+        private int capacity = 100;
+
+        private EvictionPolicy eviction = EvictionPolicy.LRU;
+
+        /**
+         * Entries compared when picking the one to evict from a full region.
+         */
+        private int evictionSamples = 8;
+    }
+
+    public enum EvictionPolicy {
+        LRU,
+        LFU
+    }
+}
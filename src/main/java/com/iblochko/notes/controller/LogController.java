@@ -1,6 +1,9 @@
 package com.iblochko.notes.controller;
 
+import com.iblochko.notes.exception.BadRequestException;
+import com.iblochko.notes.log.LogLines;
 import com.iblochko.notes.service.LogService;
+import com.iblochko.notes.util.FileTransferUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -8,28 +11,45 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 @RestController
 @RequestMapping("/logs")
 @Tag(name = "Log Management", description = "API for retrieving and managing application logs")
 public class LogController {
+    private static final String TOTAL_LINES_HEADER = "X-Total-Lines";
+    private static final MediaType TEXT_PLAIN_UTF8 =
+            new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
     private final LogService logService;
 
     @Autowired
@@ -39,25 +59,90 @@ public class LogController {
 
     @GetMapping
     @Operation(summary = "Get logs for a specific date",
-            description = "Returns log entries for the specified date")
+            description = "Streams log entries for the specified date. Supports paging by "
+                    + "line and a single byte Range of the page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved logs",
                 content = @Content(mediaType = "text/plain", schema = @Schema(type = "string"))),
-        @ApiResponse(responseCode = "400", description = "Invalid date format"),
+        @ApiResponse(responseCode = "206", description = "Requested range of the logs"),
+        @ApiResponse(responseCode = "400", description = "Invalid date format or paging"),
+        @ApiResponse(responseCode = "416", description = "Range not satisfiable"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<String> getLogsForDate(
+    public ResponseEntity<StreamingResponseBody> getLogsForDate(
             @Parameter(description = "Date in yyyy-MM-dd format", required = true)
-            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "Number of matching lines to skip")
+            @RequestParam(defaultValue = "0") int offset,
+            @Parameter(description = "Maximum number of lines to return")
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+        if (offset < 0 || (limit != null && limit < 0)) {
+            throw new BadRequestException("Offset and limit must not be negative");
+        }
+        LogLines lines;
         try {
-            String logs = logService.getLogsForDate(date);
-            return ResponseEntity.ok(logs);
+            lines = logService.getLogLines(date, offset, limit != null ? limit : Integer.MAX_VALUE);
         } catch (IOException e) {
-            return ResponseEntity.internalServerError()
-                    .body("Error retrieving logs: " + e.getMessage());
+            return text(ResponseEntity.internalServerError(),
+                    "Error retrieving logs: " + e.getMessage());
+        }
+        if (lines.getTotalLines() == 0) {
+            return text(ResponseEntity.ok(), "No logs found for date: " + date);
+        }
+
+        long length = lines.getLength();
+        HttpRange byteRange = singleRange(range);
+        if (byteRange == null) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(TOTAL_LINES_HEADER, String.valueOf(lines.getTotalLines()))
+                    .contentType(TEXT_PLAIN_UTF8)
+                    .contentLength(length)
+                    .body(out -> lines.writeTo(out));
+        }
+        long start;
+        long end;
+        try {
+            start = byteRange.getRangeStart(length);
+            end = byteRange.getRangeEnd(length);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                    .build();
+        }
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length)
+                .header(TOTAL_LINES_HEADER, String.valueOf(lines.getTotalLines()))
+                .contentType(TEXT_PLAIN_UTF8)
+                .contentLength(end - start + 1)
+                .body(out -> lines.writeTo(out, start, end + 1));
+    }
+
+    /**
+     * The requested byte range, or null to send the whole body. Malformed headers and
+     * multiple ranges are ignored, as HTTP allows.
+     */
+    private static HttpRange singleRange(String range) {
+        if (range == null) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 
+    private static ResponseEntity<StreamingResponseBody> text(ResponseEntity.BodyBuilder response,
+                                                              String text) {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        return response.contentType(TEXT_PLAIN_UTF8)
+                .contentLength(body.length)
+                .body(out -> out.write(body));
+    }
 
     @PostMapping("/create")
     @Operation(summary = "Create log processing task",
@@ -69,16 +154,38 @@ public class LogController {
                 content = @Content(mediaType = "text/plain",
                         schema = @Schema(type = "string", description = "Task ID"))),
         @ApiResponse(responseCode = "400", description = "Invalid request body"),
+        @ApiResponse(responseCode = "429", description = "Too many tasks are queued"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<String> createLog(
             @Parameter(description = "Log content to process", required = true)
             @RequestBody String content,
-            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        String taskId = logService.createLogTask(content, date);
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "Tasks with a higher priority run first")
+            @RequestParam(defaultValue = "0") int priority) {
+        String taskId = logService.createLogTask(content, date, priority);
         return ResponseEntity.accepted().body(taskId);
     }
 
+    @DeleteMapping("/{taskId}")
+    @Operation(summary = "Cancel log task",
+            description = "Cancels a queued or running log processing task")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Task after the cancellation request",
+                content = @Content(mediaType = "application/json",
+                        schema = @Schema(implementation = LogService.LogTask.class))),
+        @ApiResponse(responseCode = "404", description = "Task not found")
+    })
+    public ResponseEntity<LogService.LogTask> cancelLog(
+            @Parameter(description = "Log task ID", required = true)
+            @PathVariable String taskId) {
+        LogService.LogTask task = logService.cancelTask(taskId);
+        if (task == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(task);
+    }
+
     @GetMapping("/{taskId}/status")
     @Operation(summary = "Get log task status",
             description = "Returns the current status of a log processing task")
@@ -101,38 +208,87 @@ public class LogController {
 
     @GetMapping("/{taskId}/download")
     @Operation(summary = "Download log file",
-            description = "Downloads the log file for a completed processing task")
+            description = "Downloads the log file for a completed processing task. Supports a "
+                    + "single byte Range, conditional on If-Range")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully downloaded log file",
                 content = @Content(mediaType = "text/plain")),
-        @ApiResponse(responseCode = "102", description = "Processing - task not yet completed"),
-        @ApiResponse(responseCode = "404", description = "Task not found"),
+        @ApiResponse(responseCode = "206", description = "Requested range of the log file"),
+        @ApiResponse(responseCode = "404", description = "Task not found or not completed"),
+        @ApiResponse(responseCode = "416", description = "Range not satisfiable"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<ByteArrayResource> downloadLog(
+    public void downloadLog(
             @Parameter(description = "Log task ID", required = true)
-            @PathVariable String taskId) {
+            @PathVariable String taskId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = logService.getLogFilePath(taskId);
+        if (file == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        long length;
+        long lastModified;
         try {
-            LogService.LogTask task = logService.getTaskStatus(taskId);
-            if (task == null) {
-                return ResponseEntity.notFound().build();
-            }
+            length = Files.size(file);
+            lastModified = Files.getLastModifiedTime(file).toMillis();
+        } catch (NoSuchFileException e) {
+            // Evicted by the sweeper in the meantime
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
 
-            if (task.getStatus() != LogService.LogTask.Status.COMPLETED) {
-                return ResponseEntity.notFound().build();
-            }
+        // Artifacts are written once, so size and time identify the content
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified)
+                + "\"";
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=log_" + taskId + ".txt");
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
 
-            byte[] data = logService.getLogFile(taskId);
-            ByteArrayResource resource = new ByteArrayResource(data);
+        HttpRange byteRange = rangeApplies(ifRange, etag, lastModified) ? singleRange(range)
+                : null;
+        if (byteRange == null) {
+            FileTransferUtil.send(request, response, file, 0, length);
+            return;
+        }
+        long start;
+        long end;
+        try {
+            start = byteRange.getRangeStart(length);
+            end = byteRange.getRangeEnd(length);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE,
+                "bytes " + start + "-" + end + "/" + length);
+        FileTransferUtil.send(request, response, file, start, end + 1);
+    }
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=log_" + taskId + ".txt")
-                    .contentType(MediaType.TEXT_PLAIN)
-                    .contentLength(data.length)
-                    .body(resource);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    /**
+     * Whether a Range may be served: without If-Range, or if it names the current strong
+     * entity tag or exact modification date. Otherwise the whole file is sent.
+     */
+    private static boolean rangeApplies(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return value.equals(etag);
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toEpochSecond() == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
         }
     }
-}
\ No newline at end of file
+}
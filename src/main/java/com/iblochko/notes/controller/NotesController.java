@@ -1,15 +1,21 @@
 package com.iblochko.notes.controller;
 
+import com.iblochko.notes.cache.CachedJson;
 import com.iblochko.notes.dto.NoteDto;
 import com.iblochko.notes.model.Note;
 import com.iblochko.notes.service.NoteService;
+import com.iblochko.notes.util.ETagUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +23,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -55,14 +62,52 @@ public class NotesController {
             description =
                     "Returns a note with entered id")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Successfully retrieved note"),
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved note",
+                content = @Content(mediaType = "application/json",
+                        schema = @Schema(implementation = Note.class))),
+        @ApiResponse(responseCode = "304", description = "Note not modified"),
         @ApiResponse(responseCode = "404", description = "Note not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Note> findNoteById(@Parameter(description = "Note id", required = true)
-                                             @PathVariable Long id) {
-        Note note = noteService.findNoteById(id);
-        return new ResponseEntity<>(note, HttpStatus.OK);
+    public ResponseEntity<byte[]> findNoteById(@Parameter(description = "Note id", required = true)
+                                               @PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                       required = false) String ifNoneMatch,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING,
+                                                       required = false) String acceptEncoding) {
+        String etag = noteService.getNoteEtag(id);
+        // The gzip body is a representation of its own and carries its own tag
+        String gzipEtag = ETagUtil.forGzip(etag);
+        if (ETagUtil.matches(ifNoneMatch, etag) || ETagUtil.matches(ifNoneMatch, gzipEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(ETagUtil.matches(ifNoneMatch, etag) ? etag : gzipEtag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        // Body is serialized once per note version and written as-is
+        CachedJson json = noteService.getNoteJson(id);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (json.getGzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.eTag(ETagUtil.forGzip(json.getEtag()))
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(json.getGzip());
+        }
+        return response.eTag(json.getEtag()).body(json.getJson());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 
     @GetMapping("/tagName")
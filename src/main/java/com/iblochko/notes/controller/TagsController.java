@@ -4,6 +4,7 @@ import com.iblochko.notes.dto.TagDto;
 import com.iblochko.notes.exception.ErrorResponse;
 import com.iblochko.notes.model.Tag;
 import com.iblochko.notes.service.TagService;
+import com.iblochko.notes.util.ETagUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,6 +13,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -20,6 +22,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -51,14 +54,21 @@ public class TagsController {
                     "Returns a tag with entered id")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved tag"),
+        @ApiResponse(responseCode = "304", description = "Tag not modified"),
         @ApiResponse(responseCode = "404", description = "Tag not found",
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         @ApiResponse(responseCode = "500", description = "Internal server error",
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<Tag> getTagById(@PathVariable Long id) {
+    public ResponseEntity<Tag> getTagById(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                  required = false) String ifNoneMatch) {
+        String etag = tagService.getTagEtag(id);
+        if (ETagUtil.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         Tag tag = tagService.getTagById(id);
-        return new ResponseEntity<>(tag, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(ETagUtil.forTag(tag)).body(tag);
     }
 
     @PostMapping
@@ -3,12 +3,14 @@ package com.iblochko.notes.controller;
 import com.iblochko.notes.dto.UserDto;
 import com.iblochko.notes.model.User;
 import com.iblochko.notes.service.UserService;
+import com.iblochko.notes.util.ETagUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -17,6 +19,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -47,12 +50,20 @@ public class UsersController {
                     "Returns a user with entered username")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved users"),
+        @ApiResponse(responseCode = "304", description = "User not modified"),
         @ApiResponse(responseCode = "404", description = "User not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<User> findUserByUsername(@PathVariable String username) {
+    public ResponseEntity<User> findUserByUsername(@PathVariable String username,
+                                                   @RequestHeader(
+                                                           value = HttpHeaders.IF_NONE_MATCH,
+                                                           required = false) String ifNoneMatch) {
+        String etag = userService.getUserEtag(username);
+        if (ETagUtil.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         User user =  userService.getUserByUsername(username);
-        return new ResponseEntity<>(user, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(ETagUtil.forUser(user)).body(user);
     }
 
     @PostMapping
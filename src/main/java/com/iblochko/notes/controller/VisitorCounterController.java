@@ -1,15 +1,31 @@
 package com.iblochko.notes.controller;
 
+import com.iblochko.notes.dto.HotUrlDto;
+import com.iblochko.notes.dto.LatencyStatsDto;
+import com.iblochko.notes.dto.RouteRateDto;
+import com.iblochko.notes.dto.VisitPointDto;
+import com.iblochko.notes.exception.BadRequestException;
+import com.iblochko.notes.metrics.LatencyTracker;
+import com.iblochko.notes.metrics.PrometheusExporter;
+import com.iblochko.notes.metrics.RequestRateTracker;
+import com.iblochko.notes.metrics.VisitHistoryStore;
+import com.iblochko.notes.metrics.VisitorSketchTracker;
 import com.iblochko.notes.service.VisitorCounterService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -22,10 +38,25 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Visitor Counter", description = "API for tracking and retrieving URL visit statistics")
 public class VisitorCounterController {
     private final VisitorCounterService visitorCounterService;
+    private final RequestRateTracker requestRateTracker;
+    private final VisitorSketchTracker visitorSketchTracker;
+    private final LatencyTracker latencyTracker;
+    private final PrometheusExporter prometheusExporter;
+    private final VisitHistoryStore visitHistoryStore;
 
     @Autowired
-    public VisitorCounterController(VisitorCounterService visitorCounterService) {
+    public VisitorCounterController(VisitorCounterService visitorCounterService,
+                                    RequestRateTracker requestRateTracker,
+                                    VisitorSketchTracker visitorSketchTracker,
+                                    LatencyTracker latencyTracker,
+                                    PrometheusExporter prometheusExporter,
+                                    VisitHistoryStore visitHistoryStore) {
         this.visitorCounterService = visitorCounterService;
+        this.requestRateTracker = requestRateTracker;
+        this.visitorSketchTracker = visitorSketchTracker;
+        this.latencyTracker = latencyTracker;
+        this.prometheusExporter = prometheusExporter;
+        this.visitHistoryStore = visitHistoryStore;
     }
 
     @PostMapping("/register")
@@ -90,4 +121,119 @@ public class VisitorCounterController {
         Map<String, Long> stats = visitorCounterService.getAllStats();
         return ResponseEntity.ok(stats);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/rates")
+    @Operation(summary = "Get current request rates for all routes",
+            description = "Returns 1, 5 and 15 minute average request rates per route")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved request rates",
+                content = @Content(mediaType = "application/json",
+                        array = @ArraySchema(
+                                schema = @Schema(implementation = RouteRateDto.class)))),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<RouteRateDto>> getAllRates() {
+        return ResponseEntity.ok(requestRateTracker.getAllRates());
+    }
+
+    @GetMapping("/rates/route")
+    @Operation(summary = "Get current request rates for a route",
+            description = "Returns 1, 5 and 15 minute average request rates for the route")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved request rates",
+                content = @Content(mediaType = "application/json",
+                        schema = @Schema(implementation = RouteRateDto.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<RouteRateDto> getRouteRates(
+            @Parameter(description = "Route template, e.g. /notes/{id}", required = true)
+            @RequestParam String route) {
+        return ResponseEntity.ok(requestRateTracker.getRates(route));
+    }
+
+    @GetMapping("/top")
+    @Operation(summary = "Get the most requested URLs",
+            description = "Returns the most requested URLs with approximate request counts")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved top URLs",
+                content = @Content(mediaType = "application/json",
+                        array = @ArraySchema(
+                                schema = @Schema(implementation = HotUrlDto.class)))),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<HotUrlDto>> getTopUrls(
+            @Parameter(description = "Maximum number of URLs to return")
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(visitorSketchTracker.getTopUrls(limit));
+    }
+
+    @GetMapping("/unique")
+    @Operation(summary = "Get unique clients per route",
+            description = "Returns the approximate number of distinct clients for every route")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved unique clients",
+                content = @Content(mediaType = "application/json",
+                        schema = @Schema(description = "Map of route to unique client count"))),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<Map<String, Long>> getUniqueClients() {
+        return ResponseEntity.ok(visitorSketchTracker.getAllUniqueClients());
+    }
+
+    @GetMapping("/latency")
+    @Operation(summary = "Get request latency percentiles",
+            description = "Returns p50, p90, p99, p99.9 and max latency per route and status "
+                    + "over the last one to two reset intervals")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved latencies",
+                content = @Content(mediaType = "application/json",
+                        array = @ArraySchema(
+                                schema = @Schema(implementation = LatencyStatsDto.class)))),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<LatencyStatsDto>> getLatencies() {
+        return ResponseEntity.ok(latencyTracker.getLatencies());
+    }
+
+    @GetMapping("/prometheus")
+    @Operation(summary = "Export statistics for Prometheus",
+            description = "Streams visit counters, rates, latencies and cache statistics "
+                    + "in the Prometheus text exposition format")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully exported metrics",
+                content = @Content(mediaType = "text/plain")),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public void getPrometheusMetrics(HttpServletResponse response) throws IOException {
+        response.setContentType(PrometheusExporter.CONTENT_TYPE);
+        prometheusExporter.write(response.getWriter());
+    }
+
+    @GetMapping("/history")
+    @Operation(summary = "Get visit history of a route",
+            description = "Returns visits per minute, hour or day between two instants")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved visit history",
+                content = @Content(mediaType = "application/json",
+                        array = @ArraySchema(
+                                schema = @Schema(implementation = VisitPointDto.class)))),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<VisitPointDto>> getHistory(
+            @Parameter(description = "Route template, e.g. /notes/{id}", required = true)
+            @RequestParam String route,
+            @Parameter(description = "MINUTE, HOUR or DAY")
+            @RequestParam(defaultValue = "MINUTE") VisitHistoryStore.Resolution resolution,
+            @Parameter(description = "Start instant, e.g. 2025-03-01T00:00:00Z", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "End instant, inclusive", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to)
+            throws IOException {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("from must not be after to");
+        }
+        return ResponseEntity.ok(visitHistoryStore.getHistory(route, resolution, from, to));
+    }
+}
@@ -0,0 +1,25 @@
+package com.iblochko.notes.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Frequently requested URL with its approximate request count")
+public class HotUrlDto {
+
+    @Schema(
+            description = "Requested URL",
+            example = "/notes/42"
+    )
+    private String url;
+
+    @Schema(
+            description = "Estimated number of requests, never lower than the real one",
+            example = "1500"
+    )
+    private long count;
+}
@@ -0,0 +1,46 @@
+package com.iblochko.notes.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Latency percentiles of a route and response status, in milliseconds")
+public class LatencyStatsDto {
+
+    @Schema(
+            description = "Route template the requests matched",
+            example = "/notes/{id}"
+    )
+    private String route;
+
+    @Schema(
+            description = "HTTP response status",
+            example = "200"
+    )
+    private int status;
+
+    @Schema(
+            description = "Number of requests in the reported interval",
+            example = "1200"
+    )
+    private long count;
+
+    @Schema(description = "Median latency", example = "3.1")
+    private double p50;
+
+    @Schema(description = "90th percentile latency", example = "7.8")
+    private double p90;
+
+    @Schema(description = "99th percentile latency", example = "21.4")
+    private double p99;
+
+    @Schema(description = "99.9th percentile latency", example = "58.0")
+    private double p999;
+
+    @Schema(description = "Highest latency", example = "112.5")
+    private double max;
+}
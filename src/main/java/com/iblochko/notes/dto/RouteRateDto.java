@@ -0,0 +1,37 @@
+package com.iblochko.notes.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request rates of a route over sliding windows, in requests per second")
+public class RouteRateDto {
+
+    @Schema(
+            description = "Route template the requests matched",
+            example = "/notes/{id}"
+    )
+    private String route;
+
+    @Schema(
+            description = "Average rate over the last minute",
+            example = "12.5"
+    )
+    private double oneMinuteRate;
+
+    @Schema(
+            description = "Average rate over the last 5 minutes",
+            example = "10.2"
+    )
+    private double fiveMinuteRate;
+
+    @Schema(
+            description = "Average rate over the last 15 minutes",
+            example = "8.7"
+    )
+    private double fifteenMinuteRate;
+}
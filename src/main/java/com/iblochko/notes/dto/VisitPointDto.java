@@ -0,0 +1,26 @@
+package com.iblochko.notes.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Visits of a route during one minute, hour or day")
+public class VisitPointDto {
+
+    @Schema(
+            description = "Start of the period in UTC",
+            example = "2025-03-01T12:00:00Z"
+    )
+    private Instant timestamp;
+
+    @Schema(
+            description = "Number of visits during the period",
+            example = "42"
+    )
+    private long count;
+}
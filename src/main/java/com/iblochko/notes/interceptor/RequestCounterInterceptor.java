@@ -1,6 +1,10 @@
 package com.iblochko.notes.interceptor;
 
+import com.iblochko.notes.metrics.LatencyTracker;
+import com.iblochko.notes.metrics.RequestRateTracker;
+import com.iblochko.notes.metrics.VisitorSketchTracker;
 import com.iblochko.notes.service.VisitorCounterService;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,21 +14,71 @@ import org.springframework.web.servlet.HandlerInterceptor;
 
 @Component
 public class RequestCounterInterceptor implements HandlerInterceptor {
+    private static final String ROUTE_ATTRIBUTE = "com.iblochko.notes.interceptor.route";
+    private static final String START_ATTRIBUTE = "com.iblochko.notes.interceptor.start";
+
     private final VisitorCounterService visitorCounterService;
+    private final RouteKeyResolver routeKeyResolver;
+    private final RequestRateTracker requestRateTracker;
+    private final VisitorSketchTracker visitorSketchTracker;
+    private final LatencyTracker latencyTracker;
 
     @Autowired
-    public RequestCounterInterceptor(VisitorCounterService visitorCounterService) {
+    public RequestCounterInterceptor(VisitorCounterService visitorCounterService,
+                                     RouteKeyResolver routeKeyResolver,
+                                     RequestRateTracker requestRateTracker,
+                                     VisitorSketchTracker visitorSketchTracker,
+                                     LatencyTracker latencyTracker) {
         this.visitorCounterService = visitorCounterService;
+        this.routeKeyResolver = routeKeyResolver;
+        this.requestRateTracker = requestRateTracker;
+        this.visitorSketchTracker = visitorSketchTracker;
+        this.latencyTracker = latencyTracker;
     }
 
     @Override
     public boolean preHandle(HttpServletRequest request,
                              @NonNull HttpServletResponse response, @NonNull Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // Resuming an async request counted on its first dispatch; keep its start time
+            return true;
+        }
         String requestUri = request.getRequestURI();
         if (!requestUri.startsWith("/stats")) {
-            visitorCounterService.registerVisit(requestUri);
+            String route = routeKeyResolver.resolve(request);
+            visitorCounterService.registerVisit(route);
+            requestRateTracker.record(route);
+            visitorSketchTracker.record(route, requestUri, clientId(request));
+            request.setAttribute(ROUTE_ATTRIBUTE, route);
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
         }
         return true;
     }
 
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request,
+                                @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        Object route = request.getAttribute(ROUTE_ATTRIBUTE);
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (route == null || start == null) {
+            return;
+        }
+        int status = response.getStatus();
+        if (ex != null && status < 400) {
+            // The error is rendered after this callback; count it as the server error it becomes
+            status = 500;
+        }
+        latencyTracker.record((String) route, status, System.nanoTime() - (Long) start);
+    }
+
+    private static String clientId(HttpServletRequest request) {
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor != null && !forwardedFor.isBlank()) {
+            int comma = forwardedFor.indexOf(',');
+            return (comma >= 0 ? forwardedFor.substring(0, comma) : forwardedFor).trim();
+        }
+        return request.getRemoteAddr();
+    }
+
 }
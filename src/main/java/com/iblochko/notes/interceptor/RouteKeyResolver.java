@@ -0,0 +1,52 @@
+package com.iblochko.notes.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Maps a request to the key its visits are counted under.
+ *
+ * <p>By default this is the route template Spring MVC matched, e.g. {@code /notes/{id}}, so the
+ * number of counters is bounded by the number of routes. In raw mode the request URI is used
+ * instead, up to {@code max-raw-keys} distinct URIs; later ones share the overflow key.
+ */
+@Component
+public class RouteKeyResolver {
+    private final boolean rawMode;
+    private final int maxRawKeys;
+    private final String overflowKey;
+    private final Set<String> rawKeys = ConcurrentHashMap.newKeySet();
+
+    public RouteKeyResolver(@Value("${stats.route.mode:template}") String mode,
+                            @Value("${stats.route.max-raw-keys:1000}") int maxRawKeys,
+                            @Value("${stats.route.overflow-key:/**}") String overflowKey) {
+        this.rawMode = "raw".equalsIgnoreCase(mode);
+        this.maxRawKeys = maxRawKeys;
+        this.overflowKey = overflowKey;
+    }
+
+    public String resolve(HttpServletRequest request) {
+        if (rawMode) {
+            return capped(request.getRequestURI());
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // Requests no handler matched have no template; don't let them mint new keys
+        return pattern != null ? pattern.toString() : overflowKey;
+    }
+
+    private String capped(String uri) {
+        if (rawKeys.contains(uri)) {
+            return uri;
+        }
+        // Racing inserts may overshoot the cap by the number of concurrent requests
+        if (rawKeys.size() >= maxRawKeys) {
+            return overflowKey;
+        }
+        rawKeys.add(uri);
+        return uri;
+    }
+}
@@ -0,0 +1,62 @@
+package com.iblochko.notes.job;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Lets a running job notice that it was cancelled or ran out of time.
+ *
+ * <p>Both also interrupt the worker, which aborts blocking calls; work that only computes
+ * should call {@link #checkCancelled()} now and then.
+ */
+public final class JobContext {
+    private volatile boolean cancelled;
+    private volatile boolean timedOut;
+    private Thread thread;
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Throws {@link CancellationException} once the job was cancelled or timed out.
+     */
+    public void checkCancelled() {
+        if (timedOut) {
+            throw new CancellationException("Job timed out");
+        }
+        if (cancelled) {
+            throw new CancellationException("Job was cancelled");
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        interrupt();
+    }
+
+    void timeOut() {
+        timedOut = true;
+        interrupt();
+    }
+
+    synchronized void attach(Thread worker) {
+        thread = worker;
+    }
+
+    /**
+     * Stops later cancellations from interrupting the worker, which moves on to other jobs.
+     */
+    synchronized void detach() {
+        thread = null;
+    }
+
+    private synchronized void interrupt() {
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.iblochko.notes.job;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs jobs on a fixed number of workers, highest priority first and in submission order
+ * within a priority.
+ *
+ * <p>At most {@code queueCapacity} jobs wait for a worker; further submissions are rejected
+ * so callers can push back instead of piling up work. A running job is interrupted once it
+ * exceeds the timeout.
+ */
+@Slf4j
+public final class JobScheduler {
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService timer;
+    private final int queueCapacity;
+    private final Duration timeout;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public JobScheduler(String name, int workerCount, int queueCapacity, Duration timeout) {
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), threadFactory(name));
+        this.timer = Executors.newSingleThreadScheduledExecutor(threadFactory(name + "-timeout"));
+        this.queueCapacity = queueCapacity;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Queues the work under {@code id}.
+     *
+     * @throws RejectedExecutionException if the queue is full or the scheduler is shut down
+     */
+    public void submit(String id, int priority, Work work) {
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            throw new RejectedExecutionException("Job queue is full");
+        }
+        Job job = new Job(id, priority, sequence.getAndIncrement(), work);
+        jobs.put(id, job);
+        try {
+            workers.execute(job);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id, job);
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Removes a queued job so it never runs, or interrupts a running one. Returns false if
+     * the job is unknown or already finished.
+     */
+    public boolean cancel(String id) {
+        Job job = jobs.remove(id);
+        if (job == null) {
+            return false;
+        }
+        if (workers.remove(job)) {
+            queued.decrementAndGet();
+        } else {
+            job.context.cancel();
+        }
+        return true;
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public int getRunning() {
+        return workers.getActiveCount();
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    public interface Work {
+        void run(JobContext context) throws Exception;
+    }
+
+    private final class Job implements Runnable, Comparable<Job> {
+        private final String id;
+        private final int priority;
+        private final long sequence;
+        private final Work work;
+        private final JobContext context = new JobContext();
+
+        private Job(String id, int priority, long sequence, Work work) {
+            this.id = id;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            queued.decrementAndGet();
+            context.attach(Thread.currentThread());
+            ScheduledFuture<?> deadline = timer.schedule(context::timeOut, timeout.toMillis(),
+                    TimeUnit.MILLISECONDS);
+            try {
+                // Cancelled between leaving the queue and starting
+                if (!context.isCancelled()) {
+                    work.run(context);
+                }
+            } catch (Exception e) {
+                log.warn("Job {} failed: {}", id, e.getMessage());
+            } finally {
+                deadline.cancel(false);
+                context.detach();
+                // A cancellation that raced with the end of the job must not hit the next one
+                Thread.interrupted();
+                jobs.remove(id, this);
+            }
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            if (priority != other.priority) {
+                return Integer.compare(other.priority, priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
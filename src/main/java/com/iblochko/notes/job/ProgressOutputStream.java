@@ -0,0 +1,48 @@
+package com.iblochko.notes.job;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.IntConsumer;
+
+/**
+ * Reports a job's progress, in percent of {@code total} bytes, as its output is written and
+ * stops the job between writes once it is cancelled.
+ */
+public final class ProgressOutputStream extends FilterOutputStream {
+    private final long total;
+    private final JobContext context;
+    private final IntConsumer onProgress;
+    private long written;
+    private int percent = -1;
+
+    public ProgressOutputStream(OutputStream out, long total, JobContext context,
+                                IntConsumer onProgress) {
+        super(out);
+        this.total = total;
+        this.context = context;
+        this.onProgress = onProgress;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        advance(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        context.checkCancelled();
+        out.write(b, off, len);
+        advance(len);
+    }
+
+    private void advance(long bytes) {
+        written += bytes;
+        int current = total > 0 ? (int) Math.min(100, written * 100 / total) : 100;
+        if (current != percent) {
+            percent = current;
+            onProgress.accept(current);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.iblochko.notes.log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sidecar index from each date to the byte ranges of the log file that hold its lines.
+ *
+ * <p>A line is dated by its {@code yyyy-MM-dd} prefix; undated lines such as stack traces
+ * belong to the range of the line before them. Each query extends the index from where it
+ * stopped, and the index is kept in {@code <log>.idx} so a restart does not rescan the whole
+ * log. It is rebuilt when the log was truncated or replaced.
+ *
+ * <p>While more than {@code catchUpBytes} of the log are unindexed, for example on the first
+ * query against a large log, queries binary search the line timestamps instead, which assumes
+ * the log is in chronological order, and the index catches up by that many bytes per query.
+ */
+@Slf4j
+public final class LogDateIndex {
+    static final int DATE_LENGTH = 10;
+    static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final String HEADER = "notes-log-index 1";
+    private static final int HEAD_BYTES = 64;
+    private static final int INDEX_BUFFER_BYTES = 64 * 1024;
+    private static final int SEARCH_BUFFER_BYTES = 4096;
+
+    private final Path logFile;
+    private final Path indexFile;
+    private final long catchUpBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    private long indexedLength;
+    private long headHash;
+    private String fileKey;
+    private boolean loaded;
+
+    public LogDateIndex(Path logFile, long catchUpBytes) {
+        this.logFile = logFile;
+        this.indexFile = logFile.resolveSibling(logFile.getFileName() + ".idx");
+        this.catchUpBytes = catchUpBytes;
+    }
+
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * Byte ranges, in file order, of the lines dated {@code date} together with the undated
+     * lines that follow them.
+     */
+    public synchronized List<LogRange> find(LocalDate date) throws IOException {
+        long day = date.toEpochDay();
+        List<LogRange> ranges = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (!refresh(channel, size)) {
+                long start = lowerBound(channel, size, day);
+                long end = lowerBound(channel, size, day + 1);
+                if (start < end) {
+                    ranges.add(new LogRange(start, end));
+                }
+                return ranges;
+            }
+            for (Segment segment : segments) {
+                if (segment.day == day) {
+                    ranges.add(new LogRange(segment.start, segment.end));
+                }
+            }
+            addTail(channel, size, day, ranges);
+        }
+        return ranges;
+    }
+
+    /**
+     * Indexes up to {@code catchUpBytes} more of the log and tells whether the index now
+     * covers every complete line.
+     */
+    private boolean refresh(FileChannel channel, long size) throws IOException {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+        String currentKey = fileKey();
+        if (size < indexedLength || headHash(channel, indexedLength) != headHash
+                || !currentKey.equals(fileKey)) {
+            segments.clear();
+            indexedLength = 0;
+            fileKey = currentKey;
+        }
+        long limit = Math.min(size, indexedLength + catchUpBytes);
+        long indexed = scanLines(channel, indexedLength, limit, true, false,
+                INDEX_BUFFER_BYTES, this::indexLine);
+        if (indexed != indexedLength) {
+            indexedLength = indexed;
+            headHash = headHash(channel, indexed);
+            save();
+        }
+        return limit == size;
+    }
+
+    private boolean indexLine(long start, long end, long day) {
+        Segment open = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (open != null && (day == NO_DATE || day == open.day)) {
+            open.end = end;
+        } else if (day != NO_DATE) {
+            segments.add(new Segment(day, start, end));
+        }
+        return true;
+    }
+
+    /**
+     * The last line is only indexed once its newline is written, but is still served.
+     */
+    private void addTail(FileChannel channel, long size, long day, List<LogRange> ranges)
+            throws IOException {
+        if (indexedLength == size) {
+            return;
+        }
+        long[] tailDay = new long[1];
+        scanLines(channel, indexedLength, size, true, true, SEARCH_BUFFER_BYTES,
+                (start, end, lineDay) -> {
+                    tailDay[0] = lineDay;
+                    return false;
+                });
+        Segment open = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        boolean continues = tailDay[0] == NO_DATE && open != null && open.day == day;
+        if (tailDay[0] == day || continues) {
+            LogRange last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last.getEnd() == indexedLength) {
+                ranges.set(ranges.size() - 1, new LogRange(last.getStart(), size));
+            } else {
+                ranges.add(new LogRange(indexedLength, size));
+            }
+        }
+    }
+
+    /**
+     * Offset of the first dated line at or after the first line dated {@code day} or later,
+     * or the file size if there is none.
+     */
+    private static long lowerBound(FileChannel channel, long size, long day) throws IOException {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            long[] line = firstDatedLine(channel, mid, size);
+            if (line != null && line[1] < day) {
+                low = line[0] + 1;
+            } else {
+                high = mid;
+            }
+        }
+        long[] line = firstDatedLine(channel, low, size);
+        return line != null ? line[0] : size;
+    }
+
+    /**
+     * Start offset and day of the first dated line starting at or after {@code from}.
+     */
+    private static long[] firstDatedLine(FileChannel channel, long from, long size)
+            throws IOException {
+        long[] found = new long[2];
+        found[0] = -1;
+        boolean aligned = from == 0;
+        long position = aligned ? 0 : from - 1;
+        scanLines(channel, position, size, aligned, true, SEARCH_BUFFER_BYTES,
+                (start, end, day) -> {
+                    if (day == NO_DATE) {
+                        return true;
+                    }
+                    found[0] = start;
+                    found[1] = day;
+                    return false;
+                });
+        return found[0] >= 0 ? found : null;
+    }
+
+    /**
+     * Visits the lines between {@code from} and {@code to}, starting at the first line start
+     * after {@code from} unless it is one already. A last line without a newline is visited
+     * only if {@code partial} is set. Returns the offset after the last line visited.
+     */
+    static long scanLines(FileChannel channel, long from, long to, boolean aligned,
+                          boolean partial, int bufferBytes, LineVisitor visitor)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bufferBytes);
+        byte[] bytes = buffer.array();
+        byte[] prefix = new byte[DATE_LENGTH];
+        int prefixLength = 0;
+        long lineStart = aligned ? from : -1;
+        long visited = from;
+        long position = from;
+        while (position < to) {
+            buffer.clear();
+            buffer.limit((int) Math.min(bufferBytes, to - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = bytes[i];
+                if (b == '\n') {
+                    long end = position + i + 1;
+                    if (lineStart >= 0
+                            && !visitor.visit(lineStart, end, dayOf(prefix, prefixLength))) {
+                        return end;
+                    }
+                    lineStart = end;
+                    visited = end;
+                    prefixLength = 0;
+                } else if (lineStart >= 0 && prefixLength < DATE_LENGTH) {
+                    prefix[prefixLength++] = b;
+                }
+            }
+            position += read;
+        }
+        if (partial && lineStart >= 0 && lineStart < position) {
+            visitor.visit(lineStart, position, dayOf(prefix, prefixLength));
+            return position;
+        }
+        return visited;
+    }
+
+    /**
+     * Epoch day of a {@code yyyy-MM-dd} prefix, or {@link #NO_DATE}.
+     */
+    static long dayOf(byte[] prefix, int length) {
+        if (length < DATE_LENGTH || prefix[4] != '-' || prefix[7] != '-') {
+            return NO_DATE;
+        }
+        int year = digits(prefix, 0, 4);
+        int month = digits(prefix, 5, 2);
+        int day = digits(prefix, 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return NO_DATE;
+        }
+        try {
+            return LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return NO_DATE;
+        }
+    }
+
+    private static int digits(byte[] bytes, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + bytes[i] - '0';
+        }
+        return value;
+    }
+
+    private static long headHash(FileChannel channel, long length) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(length, HEAD_BYTES));
+        while (head.hasRemaining()) {
+            if (channel.read(head, head.position()) <= 0) {
+                break;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(head.array(), 0, head.position());
+        return crc.getValue();
+    }
+
+    private String fileKey() throws IOException {
+        Object key = Files.readAttributes(logFile, BasicFileAttributes.class).fileKey();
+        return key != null ? key.toString() : "-";
+    }
+
+    private void load() {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                throw new IOException("unknown format");
+            }
+            String[] state = reader.readLine().split(" ", 3);
+            List<Segment> read = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(" ");
+                read.add(new Segment(LocalDate.parse(fields[0]).toEpochDay(),
+                        Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+            }
+            indexedLength = Long.parseLong(state[0]);
+            headHash = Long.parseLong(state[1]);
+            fileKey = state[2];
+            segments.addAll(read);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Rebuilding log index {}: {}", indexFile, e.getMessage());
+        }
+    }
+
+    private void save() {
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(HEADER + "\n");
+                writer.write(indexedLength + " " + headHash + " " + fileKey + "\n");
+                for (Segment segment : segments) {
+                    writer.write(LocalDate.ofEpochDay(segment.day) + " " + segment.start + " "
+                            + segment.end + "\n");
+                }
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The index still works from memory; it is only rebuilt after a restart
+            log.warn("Could not write log index {}: {}", indexFile, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    interface LineVisitor {
+        /**
+         * Handles the line {@code [start, end)} dated {@code day}; returns false to stop.
+         */
+        boolean visit(long start, long end, long day);
+    }
+
+    private static final class Segment {
+        private final long day;
+        private final long start;
+        private long end;
+
+        private Segment(long day, long start, long end) {
+            this.day = day;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.iblochko.notes.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A page of matched log lines that is read from the log file only while it is written out.
+ *
+ * <p>The body is the lines joined by newlines. Any byte range of it can be written, so a
+ * client can resume a large response with a {@code Range} request. Lines of a gzip archive
+ * are located by offset in the decompressed content, which is decompressed again as a stream
+ * to write them.
+ */
+public final class LogLines {
+    private static final long WINDOW_BYTES = 64L * 1024 * 1024;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final boolean compressed;
+    private final LogMatches matches;
+    private final int from;
+    private final int to;
+    private final long length;
+
+    private LogLines(Path file, boolean compressed, LogMatches matches, int from, int to) {
+        this.file = file;
+        this.compressed = compressed;
+        this.matches = matches;
+        this.from = from;
+        this.to = to;
+        long bytes = Math.max(to - from - 1, 0);
+        for (int line = from; line < to; line++) {
+            bytes += matches.end(line) - matches.start(line);
+        }
+        this.length = bytes;
+    }
+
+    /**
+     * At most {@code limit} of the matched lines, skipping the first {@code offset}.
+     */
+    public static LogLines page(Path file, LogMatches matches, int offset, int limit) {
+        return page(file, false, matches, offset, limit);
+    }
+
+    /**
+     * Like {@link #page(Path, LogMatches, int, int)} for lines found in a gzip archive.
+     */
+    public static LogLines compressedPage(Path file, LogMatches matches, int offset, int limit) {
+        return page(file, true, matches, offset, limit);
+    }
+
+    private static LogLines page(Path file, boolean compressed, LogMatches matches, int offset,
+                                 int limit) {
+        int from = Math.min(offset, matches.size());
+        int to = (int) Math.min((long) from + limit, matches.size());
+        return new LogLines(file, compressed, matches, from, to);
+    }
+
+    public int getLineCount() {
+        return to - from;
+    }
+
+    public int getTotalLines() {
+        return matches.size();
+    }
+
+    /**
+     * Size of the body in bytes.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        writeTo(out, 0, length);
+    }
+
+    /**
+     * Writes the bytes {@code [start, end)} of the body.
+     */
+    public void writeTo(OutputStream out, long start, long end) throws IOException {
+        if (start >= end) {
+            return;
+        }
+        byte[] buffer = new byte[BUFFER_BYTES];
+        try (Content content = compressed ? new GzipContent(file) : new MappedContent(file)) {
+            long body = 0;
+            for (int line = from; line < to && body < end; line++) {
+                long lineStart = matches.start(line);
+                long lineLength = matches.end(line) - lineStart;
+                long copyFrom = Math.max(start, body);
+                long copyTo = Math.min(end, body + lineLength);
+                if (copyFrom < copyTo) {
+                    content.copy(lineStart + copyFrom - body, lineStart + copyTo - body, out,
+                            buffer);
+                }
+                body += lineLength;
+                if (line < to - 1) {
+                    if (body >= start && body < end) {
+                        out.write('\n');
+                    }
+                    body++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Log content that is copied from in increasing offset order.
+     */
+    private interface Content extends Closeable {
+        void copy(long position, long limit, OutputStream out, byte[] buffer) throws IOException;
+    }
+
+    private static final class MappedContent implements Content {
+        private final FileChannel channel;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        private MappedContent(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        @Override
+        public void copy(long position, long limit, OutputStream out, byte[] buffer)
+                throws IOException {
+            if (window == null || position < windowStart
+                    || limit > windowStart + window.capacity()) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(Math.max(WINDOW_BYTES, limit - position),
+                                channel.size() - position));
+            }
+            while (position < limit) {
+                int count = (int) Math.min(buffer.length, limit - position);
+                window.get((int) (position - windowStart), buffer, 0, count);
+                out.write(buffer, 0, count);
+                position += count;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final class GzipContent implements Content {
+        private final InputStream in;
+        private long position;
+
+        private GzipContent(Path file) throws IOException {
+            in = new GZIPInputStream(Files.newInputStream(file), BUFFER_BYTES);
+        }
+
+        @Override
+        public void copy(long from, long limit, OutputStream out, byte[] buffer)
+                throws IOException {
+            in.skipNBytes(from - position);
+            position = from;
+            while (position < limit) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, limit - position));
+                if (read < 0) {
+                    throw new IOException("Log archive ended before offset " + limit);
+                }
+                out.write(buffer, 0, read);
+                position += read;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
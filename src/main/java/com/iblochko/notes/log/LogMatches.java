@@ -0,0 +1,43 @@
+package com.iblochko.notes.log;
+
+import java.util.Arrays;
+
+/**
+ * Byte offsets of matched log lines in file order, without their line terminators.
+ *
+ * <p>Takes 16 bytes per matched line, so a day of a million lines holds about 16 MB while it
+ * is paged or streamed; the lines themselves are never kept in memory.
+ */
+public final class LogMatches {
+    private long[] offsets = new long[32];
+    private int size;
+
+    void add(long start, long end) {
+        if (size * 2 == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[size * 2] = start;
+        offsets[size * 2 + 1] = end;
+        size++;
+    }
+
+    void addAll(LogMatches other) {
+        if ((size + other.size) * 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, (size + other.size) * 2));
+        }
+        System.arraycopy(other.offsets, 0, offsets, size * 2, other.size * 2);
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long start(int line) {
+        return offsets[line * 2];
+    }
+
+    public long end(int line) {
+        return offsets[line * 2 + 1];
+    }
+}
@@ -0,0 +1,26 @@
+package com.iblochko.notes.log;
+
+/**
+ * Byte range {@code [start, end)} of the log file.
+ */
+public final class LogRange {
+    private final long start;
+    private final long end;
+
+    public LogRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long length() {
+        return end - start;
+    }
+}
@@ -0,0 +1,175 @@
+package com.iblochko.notes.log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Finds the log lines starting with a given prefix by memory-mapping the file.
+ *
+ * <p>The ranges to scan are cut into chunks of about {@code chunkBytes} that end on a line
+ * boundary, and the chunks are scanned in parallel on a dedicated fork-join pool. Lines are
+ * matched on their bytes and only their offsets are kept, so nothing is decoded until the
+ * matches are written out through {@link LogLines}.
+ */
+public final class LogScanner {
+    private static final int ALIGN_BUFFER_BYTES = 4096;
+    private static final int COMPRESSED_BUFFER_BYTES = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final long chunkBytes;
+
+    public LogScanner(int parallelism, long chunkBytes) {
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread =
+                    ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("log-scan-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Lines within {@code ranges} that start with {@code prefix}, in file order.
+     */
+    public LogMatches scan(Path file, List<LogRange> ranges, byte[] prefix) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<LogRange> chunks = new ArrayList<>();
+            for (LogRange range : ranges) {
+                split(channel, range, chunks);
+            }
+            if (chunks.size() <= 1) {
+                return chunks.isEmpty() ? new LogMatches() : scan(channel, chunks.get(0), prefix);
+            }
+            List<Callable<LogMatches>> tasks = new ArrayList<>(chunks.size());
+            for (LogRange chunk : chunks) {
+                tasks.add(() -> scan(channel, chunk, prefix));
+            }
+            LogMatches matches = new LogMatches();
+            for (Future<LogMatches> result : pool.invokeAll(tasks)) {
+                matches.addAll(result.get());
+            }
+            return matches;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Log scan was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause);
+        }
+    }
+
+    /**
+     * Lines of a gzip archive that start with {@code prefix}, by offset in the decompressed
+     * content. A gzip stream can only be read from its start, so this scan is sequential.
+     */
+    public LogMatches scanCompressed(Path file, byte[] prefix) throws IOException {
+        LogMatches matches = new LogMatches();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file),
+                COMPRESSED_BUFFER_BYTES)) {
+            byte[] buffer = new byte[COMPRESSED_BUFFER_BYTES];
+            long offset = 0;
+            long lineStart = 0;
+            int matched = 0;
+            byte last = 0;
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    if (b == '\n') {
+                        if (matched == prefix.length) {
+                            matches.add(lineStart, offset + i - (last == '\r' ? 1 : 0));
+                        }
+                        lineStart = offset + i + 1;
+                        matched = 0;
+                    } else if (matched >= 0 && matched < prefix.length) {
+                        // -1 marks a line that can no longer match
+                        matched = b == prefix[matched] ? matched + 1 : -1;
+                    }
+                    last = b;
+                }
+                offset += read;
+            }
+            if (lineStart < offset && matched == prefix.length) {
+                matches.add(lineStart, offset - (last == '\r' ? 1 : 0));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Cuts the range into chunks that start right after a newline.
+     */
+    private void split(FileChannel channel, LogRange range, List<LogRange> chunks)
+            throws IOException {
+        long start = range.getStart();
+        while (start < range.getEnd()) {
+            long end = range.getEnd();
+            if (end - start > chunkBytes) {
+                end = nextLineStart(channel, start + chunkBytes, range.getEnd());
+            }
+            chunks.add(new LogRange(start, end));
+            start = end;
+        }
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long limit)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(ALIGN_BUFFER_BYTES);
+        long position = from - 1;
+        while (position < limit) {
+            buffer.clear();
+            buffer.limit((int) Math.min(ALIGN_BUFFER_BYTES, limit - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return limit;
+    }
+
+    private static LogMatches scan(FileChannel channel, LogRange chunk, byte[] prefix)
+            throws IOException {
+        LogMatches matches = new LogMatches();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.getStart(),
+                chunk.length());
+        int length = buffer.capacity();
+        int lineStart = 0;
+        while (lineStart < length) {
+            boolean matched = lineStart + prefix.length <= length;
+            for (int i = 0; matched && i < prefix.length; i++) {
+                matched = buffer.get(lineStart + i) == prefix[i];
+            }
+            int lineEnd = lineStart;
+            while (lineEnd < length && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (matched) {
+                int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r'
+                        ? lineEnd - 1 : lineEnd;
+                matches.add(chunk.getStart() + lineStart, chunk.getStart() + contentEnd);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return matches;
+    }
+}
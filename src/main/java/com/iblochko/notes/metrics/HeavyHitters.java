@@ -0,0 +1,74 @@
+package com.iblochko.notes.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate top-K of the most frequent keys in fixed memory.
+ *
+ * <p>Every key is counted in a count-min sketch, whose estimates never undercount. Only the
+ * {@code capacity} keys with the highest estimates are kept by name. Keys already tracked are
+ * updated without locking. Other keys take a lock only when their estimate beats the lowest
+ * tracked one, and then they replace it.
+ */
+public final class HeavyHitters {
+    private final int capacity;
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counts;
+    private final Map<String, Long> top = new ConcurrentHashMap<>();
+    private volatile long threshold;
+
+    public HeavyHitters(int capacity, int width, int depth) {
+        this.capacity = capacity;
+        this.width = width;
+        this.depth = depth;
+        this.counts = new AtomicLongArray(width * depth);
+    }
+
+    public void add(String key) {
+        long estimate = increment(key);
+        if (top.replace(key, estimate) != null) {
+            return;
+        }
+        if (top.size() < capacity || estimate > threshold) {
+            admit(key, estimate);
+        }
+    }
+
+    public List<Map.Entry<String, Long>> top(int limit) {
+        return top.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    private synchronized void admit(String key, long estimate) {
+        top.merge(key, estimate, Math::max);
+        if (top.size() <= capacity) {
+            return;
+        }
+        Map.Entry<String, Long> lowest = top.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .orElseThrow();
+        top.remove(lowest.getKey());
+        threshold = top.values().stream().mapToLong(Long::longValue).min().orElse(0);
+    }
+
+    /**
+     * Adds one to the key's counters and returns its count-min estimate.
+     */
+    private long increment(String key) {
+        long hash = Hashing.hash64(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            // Rehash per row so a key colliding with another in one row rarely does in the next
+            int column = (int) Long.remainderUnsigned(Hashing.mix(hash + row), width);
+            estimate = Math.min(estimate, counts.incrementAndGet(row * width + column));
+        }
+        return estimate;
+    }
+}
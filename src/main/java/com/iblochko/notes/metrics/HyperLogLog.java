@@ -0,0 +1,59 @@
+package com.iblochko.notes.metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Approximate distinct counter in {@code 2^precision} bytes, with a standard error of about
+ * {@code 1.04 / sqrt(2^precision)}. Updates are lock-free: registers only ever grow, so a CAS
+ * loop that gives up once the stored rank is high enough is sufficient.
+ */
+public final class HyperLogLog {
+    private static final VarHandle REGISTER =
+            MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(String value) {
+        long hash = Hashing.hash64(value);
+        int index = (int) (hash >>> (64 - precision));
+        // The guard bit caps the rank when the remaining bits are all zero
+        byte rank = (byte) (Long.numberOfLeadingZeros(hash << precision
+                | 1L << (precision - 1)) + 1);
+        byte current;
+        do {
+            current = (byte) REGISTER.getVolatile(registers, index);
+            if (current >= rank) {
+                return;
+            }
+        } while (!REGISTER.compareAndSet(registers, index, current, rank));
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < m; i++) {
+            byte register = (byte) REGISTER.getOpaque(registers, i);
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = 0.7213 / (1 + 1.079 / m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Linear counting is more accurate while many registers are still empty
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+}
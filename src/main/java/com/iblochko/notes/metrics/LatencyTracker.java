@@ -0,0 +1,137 @@
+package com.iblochko.notes.metrics;
+
+import com.iblochko.notes.dto.LatencyStatsDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Request latency histograms per route and response status.
+ *
+ * <p>Each histogram is double-buffered: requests record into the current interval, and every
+ * {@code stats.latency.reset-interval-ms} it becomes the previous one while the oldest is
+ * cleared and reused. Reports cover both, i.e. the last one to two intervals, so they are
+ * never empty right after a reset and recording never allocates. Count and sum are also kept
+ * since startup, as Prometheus needs counters that only grow to compute rates.
+ */
+@Component
+public class LatencyTracker {
+    private static final int MIN_STATUS = 100;
+    private static final int MAX_STATUS = 599;
+
+    private final ConcurrentHashMap<String, AtomicReferenceArray<IntervalHistogram>> routes =
+            new ConcurrentHashMap<>();
+
+    public void record(String route, int status, long nanos) {
+        if (status < MIN_STATUS || status > MAX_STATUS) {
+            return;
+        }
+        AtomicReferenceArray<IntervalHistogram> statuses = routes.get(route);
+        if (statuses == null) {
+            statuses = routes.computeIfAbsent(route,
+                    key -> new AtomicReferenceArray<>(MAX_STATUS - MIN_STATUS + 1));
+        }
+        IntervalHistogram histogram = statuses.get(status - MIN_STATUS);
+        if (histogram == null) {
+            statuses.compareAndSet(status - MIN_STATUS, null, new IntervalHistogram());
+            histogram = statuses.get(status - MIN_STATUS);
+        }
+        histogram.current.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    @Scheduled(fixedDelayString = "${stats.latency.reset-interval-ms:300000}",
+            initialDelayString = "${stats.latency.reset-interval-ms:300000}")
+    public void rotate() {
+        routes.values().forEach(statuses -> {
+            for (int i = 0; i < statuses.length(); i++) {
+                IntervalHistogram histogram = statuses.get(i);
+                if (histogram != null) {
+                    histogram.rotate();
+                }
+            }
+        });
+    }
+
+    public List<LatencyStatsDto> getLatencies() {
+        List<LatencyStatsDto> stats = new ArrayList<>();
+        forEachHistogram((route, status, histogram, totalCount, totalMicros) -> {
+            if (histogram.getCount() > 0) {
+                stats.add(toDto(route, status, histogram));
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Visits the merged histogram of every route and status that saw requests, with the count
+     * and sum in microseconds of all requests since startup. The histogram passed to the
+     * consumer is reused for the next call.
+     */
+    public void forEachHistogram(HistogramConsumer consumer) {
+        LatencyHistogram merged = new LatencyHistogram();
+        long[] totals = new long[2];
+        routes.forEach((route, statuses) -> {
+            for (int i = 0; i < statuses.length(); i++) {
+                IntervalHistogram histogram = statuses.get(i);
+                if (histogram != null) {
+                    histogram.mergeInto(merged, totals);
+                    if (totals[0] > 0) {
+                        consumer.accept(route, i + MIN_STATUS, merged, totals[0], totals[1]);
+                    }
+                }
+            }
+        });
+    }
+
+    private static LatencyStatsDto toDto(String route, int status, LatencyHistogram histogram) {
+        return new LatencyStatsDto(route, status, histogram.getCount(),
+                millis(histogram.getValueAtQuantile(0.5)),
+                millis(histogram.getValueAtQuantile(0.9)),
+                millis(histogram.getValueAtQuantile(0.99)),
+                millis(histogram.getValueAtQuantile(0.999)),
+                millis(histogram.getMax()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class IntervalHistogram {
+        private volatile LatencyHistogram current = new LatencyHistogram();
+        private volatile LatencyHistogram previous = new LatencyHistogram();
+        // Requests of the intervals that were cleared
+        private long retiredCount;
+        private long retiredMicros;
+
+        private synchronized void rotate() {
+            LatencyHistogram recycled = previous;
+            retiredCount += recycled.getCount();
+            retiredMicros += recycled.getSum();
+            recycled.reset();
+            previous = current;
+            current = recycled;
+        }
+
+        /**
+         * Merges both intervals into {@code merged} and stores the count and sum since
+         * startup in {@code totals}.
+         */
+        private synchronized void mergeInto(LatencyHistogram merged, long[] totals) {
+            merged.reset();
+            previous.addTo(merged);
+            current.addTo(merged);
+            totals[0] = retiredCount + merged.getCount();
+            totals[1] = retiredMicros + merged.getSum();
+        }
+    }
+
+    @FunctionalInterface
+    public interface HistogramConsumer {
+        void accept(String route, int status, LatencyHistogram histogram, long totalCount,
+                    long totalMicros);
+    }
+}
@@ -0,0 +1,187 @@
+package com.iblochko.notes.metrics;
+
+import com.iblochko.notes.service.VisitorCounterService;
+import com.iblochko.notes.util.CacheUtil;
+import java.io.PrintWriter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes visitor, latency and cache statistics in the Prometheus text exposition format.
+ *
+ * <p>Every source is visited in place and each sample is printed straight to the writer, so a
+ * scrape builds no intermediate maps or DTOs however many series there are. Lines end with
+ * {@code \n} whatever the platform separator, as the format requires.
+ */
+@Component
+public class PrometheusExporter {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.9", "0.99", "0.999"};
+
+    private final VisitorCounterService visitorCounterService;
+    private final RequestRateTracker requestRateTracker;
+    private final VisitorSketchTracker visitorSketchTracker;
+    private final LatencyTracker latencyTracker;
+    private final CacheUtil cacheUtil;
+
+    public PrometheusExporter(VisitorCounterService visitorCounterService,
+                              RequestRateTracker requestRateTracker,
+                              VisitorSketchTracker visitorSketchTracker,
+                              LatencyTracker latencyTracker, CacheUtil cacheUtil) {
+        this.visitorCounterService = visitorCounterService;
+        this.requestRateTracker = requestRateTracker;
+        this.visitorSketchTracker = visitorSketchTracker;
+        this.latencyTracker = latencyTracker;
+        this.cacheUtil = cacheUtil;
+    }
+
+    public void write(PrintWriter out) {
+        header(out, "notes_http_requests_total", "counter",
+                "Requests per route since the counters were created");
+        visitorCounterService.forEachVisitCount((route, count) -> {
+            sample(out, "notes_http_requests_total", "route", route);
+            value(out, count);
+        });
+
+        header(out, "notes_http_request_rate", "gauge",
+                "Average requests per second over a sliding window");
+        requestRateTracker.forEachRate((route, oneMinute, fiveMinutes, fifteenMinutes) -> {
+            rate(out, route, "1m", oneMinute);
+            rate(out, route, "5m", fiveMinutes);
+            rate(out, route, "15m", fifteenMinutes);
+        });
+
+        header(out, "notes_http_unique_clients", "gauge",
+                "Approximate number of distinct clients per route");
+        visitorSketchTracker.forEachUniqueClients((route, clients) -> {
+            sample(out, "notes_http_unique_clients", "route", route);
+            value(out, clients);
+        });
+
+        header(out, "notes_http_request_duration_seconds", "summary",
+                "Request latency quantiles over the last one to two reset intervals, "
+                        + "count and sum since startup");
+        latencyTracker.forEachHistogram((route, status, histogram, totalCount, totalMicros) -> {
+            for (int i = 0; i < QUANTILES.length; i++) {
+                durationSample(out, "", route, status);
+                out.print(",quantile=\"");
+                out.print(QUANTILE_LABELS[i]);
+                out.print("\"} ");
+                // No requests in the current intervals, as for any empty summary
+                out.print(histogram.getCount() > 0
+                        ? String.valueOf(histogram.getValueAtQuantile(QUANTILES[i]) / 1_000_000.0)
+                        : "NaN");
+                out.print('\n');
+            }
+            durationSample(out, "_sum", route, status);
+            out.print("} ");
+            out.print(totalMicros / 1_000_000.0);
+            out.print('\n');
+            durationSample(out, "_count", route, status);
+            out.print("} ");
+            out.print(totalCount);
+            out.print('\n');
+        });
+
+        header(out, "notes_cache_requests_total", "counter",
+                "Cache lookups per region and result");
+        cacheUtil.forEachRegionStats((region, size, hits, misses, evictions) -> {
+            cacheSample(out, "notes_cache_requests_total", region);
+            out.print(",result=\"hit\"} ");
+            out.print(hits);
+            out.print('\n');
+            cacheSample(out, "notes_cache_requests_total", region);
+            out.print(",result=\"miss\"} ");
+            out.print(misses);
+            out.print('\n');
+        });
+        header(out, "notes_cache_evictions_total", "counter",
+                "Entries evicted because a cache region was full");
+        cacheUtil.forEachRegionStats((region, size, hits, misses, evictions) -> {
+            cacheSample(out, "notes_cache_evictions_total", region);
+            out.print("} ");
+            out.print(evictions);
+            out.print('\n');
+        });
+        header(out, "notes_cache_size", "gauge", "Entries per cache region");
+        cacheUtil.forEachRegionStats((region, size, hits, misses, evictions) -> {
+            cacheSample(out, "notes_cache_size", region);
+            out.print("} ");
+            out.print(size);
+            out.print('\n');
+        });
+        out.flush();
+    }
+
+    private static void header(PrintWriter out, String name, String type, String help) {
+        out.print("# HELP ");
+        out.print(name);
+        out.print(' ');
+        out.print(help);
+        out.print('\n');
+        out.print("# TYPE ");
+        out.print(name);
+        out.print(' ');
+        out.print(type);
+        out.print('\n');
+    }
+
+    private static void sample(PrintWriter out, String name, String label, String labelValue) {
+        out.print(name);
+        out.print('{');
+        out.print(label);
+        out.print("=\"");
+        escape(out, labelValue);
+        out.print("\"}");
+    }
+
+    private static void value(PrintWriter out, long value) {
+        out.print(' ');
+        out.print(value);
+        out.print('\n');
+    }
+
+    private static void rate(PrintWriter out, String route, String window, double rate) {
+        out.print("notes_http_request_rate{route=\"");
+        escape(out, route);
+        out.print("\",window=\"");
+        out.print(window);
+        out.print("\"} ");
+        out.print(rate);
+        out.print('\n');
+    }
+
+    private static void durationSample(PrintWriter out, String suffix, String route,
+                                       int status) {
+        out.print("notes_http_request_duration_seconds");
+        out.print(suffix);
+        out.print("{route=\"");
+        escape(out, route);
+        out.print("\",status=\"");
+        out.print(status);
+        out.print('"');
+    }
+
+    private static void cacheSample(PrintWriter out, String name, String region) {
+        out.print(name);
+        out.print("{region=\"");
+        escape(out, region);
+        out.print('"');
+    }
+
+    /**
+     * Writes a label value with backslash, quote and newline escaped, char by char.
+     */
+    private static void escape(PrintWriter out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.print("\\\\");
+                case '"' -> out.print("\\\"");
+                case '\n' -> out.print("\\n");
+                default -> out.print(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.iblochko.notes.metrics;
+
+import com.iblochko.notes.dto.RouteRateDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-route request rates over the last 1, 5 and 15 minutes.
+ */
+@Component
+public class RequestRateTracker {
+    private static final int ONE_MINUTE = 60;
+    private static final int FIVE_MINUTES = 5 * ONE_MINUTE;
+    private static final int FIFTEEN_MINUTES = 15 * ONE_MINUTE;
+
+    private final ConcurrentHashMap<String, SlidingWindowCounter> counters =
+            new ConcurrentHashMap<>();
+    private final LongSupplier secondsClock;
+
+    @Autowired
+    public RequestRateTracker() {
+        this(() -> System.currentTimeMillis() / 1000);
+    }
+
+    RequestRateTracker(LongSupplier secondsClock) {
+        this.secondsClock = secondsClock;
+    }
+
+    public void record(String route) {
+        SlidingWindowCounter counter = counters.get(route);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(route,
+                    key -> new SlidingWindowCounter(FIFTEEN_MINUTES));
+        }
+        counter.record(secondsClock.getAsLong());
+    }
+
+    public RouteRateDto getRates(String route) {
+        SlidingWindowCounter counter = counters.get(route);
+        return counter != null
+                ? toDto(route, counter, secondsClock.getAsLong())
+                : new RouteRateDto(route, 0, 0, 0);
+    }
+
+    public List<RouteRateDto> getAllRates() {
+        long now = secondsClock.getAsLong();
+        List<RouteRateDto> rates = new ArrayList<>(counters.size());
+        counters.forEach((route, counter) -> rates.add(toDto(route, counter, now)));
+        return rates;
+    }
+
+    /**
+     * Visits the rates of every route without building DTOs.
+     */
+    public void forEachRate(RateConsumer consumer) {
+        long now = secondsClock.getAsLong();
+        counters.forEach((route, counter) -> consumer.accept(route,
+                (double) counter.sum(now, ONE_MINUTE) / ONE_MINUTE,
+                (double) counter.sum(now, FIVE_MINUTES) / FIVE_MINUTES,
+                (double) counter.sum(now, FIFTEEN_MINUTES) / FIFTEEN_MINUTES));
+    }
+
+    private static RouteRateDto toDto(String route, SlidingWindowCounter counter, long now) {
+        return new RouteRateDto(route,
+                (double) counter.sum(now, ONE_MINUTE) / ONE_MINUTE,
+                (double) counter.sum(now, FIVE_MINUTES) / FIVE_MINUTES,
+                (double) counter.sum(now, FIFTEEN_MINUTES) / FIFTEEN_MINUTES);
+    }
+
+    @FunctionalInterface
+    public interface RateConsumer {
+        void accept(String route, double oneMinuteRate, double fiveMinuteRate,
+                    double fifteenMinuteRate);
+    }
+}
@@ -0,0 +1,47 @@
+package com.iblochko.notes.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free event counter over the last {@code windowSeconds} seconds.
+ *
+ * <p>Events land in a ring of per-second buckets. Each bucket packs the epoch second it belongs
+ * to in the high 32 bits and its count in the low 32 bits, so a stale bucket is reset and
+ * incremented by a single CAS and no count is lost to a concurrent reset.
+ */
+public final class SlidingWindowCounter {
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final AtomicLongArray buckets;
+
+    public SlidingWindowCounter(int windowSeconds) {
+        buckets = new AtomicLongArray(windowSeconds);
+    }
+
+    public void record(long nowSeconds) {
+        int index = (int) (nowSeconds % buckets.length());
+        long second = nowSeconds & COUNT_MASK;
+        long current;
+        long updated;
+        do {
+            current = buckets.get(index);
+            updated = current >>> 32 == second ? current + 1 : second << 32 | 1;
+        } while (!buckets.compareAndSet(index, current, updated));
+    }
+
+    /**
+     * Events recorded in the last {@code seconds} seconds, including the current one.
+     */
+    public long sum(long nowSeconds, int seconds) {
+        int span = Math.min(seconds, buckets.length());
+        long sum = 0;
+        for (int i = 0; i < span; i++) {
+            long second = nowSeconds - i;
+            long bucket = buckets.get((int) (second % buckets.length()));
+            if (bucket >>> 32 == (second & COUNT_MASK)) {
+                sum += bucket & COUNT_MASK;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,413 @@
+package com.iblochko.notes.metrics;
+
+import com.iblochko.notes.dto.VisitPointDto;
+import com.iblochko.notes.service.VisitorCounterService;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Long-term visit history per route at minute, hour and day resolution.
+ *
+ * <p>Every minute the growth of each visit counter is appended to the minute file as
+ * fixed-width records of {@code (epoch second, route id, count)}; route ids map to routes
+ * through {@code routes.txt}. When an hour or a day ends its minutes or hours are summed into
+ * the coarser file; hours and days that closed while the application was stopped are rolled
+ * up on the first tick after startup. Files are partitioned by day, month and year
+ * respectively, so retention deletes whole partitions and never rewrites a file.
+ *
+ * <p>Records are appended in time order, so a range query memory-maps each partition, binary
+ * searches the start and reads until the end of the range.
+ */
+@Slf4j
+@Component
+public class VisitHistoryStore {
+    static final int RECORD_BYTES = 20;
+
+    private static final String ROUTES_FILE = "routes.txt";
+
+    private final VisitorCounterService visitorCounterService;
+    private final Path directory;
+    private final Map<Resolution, Duration> retention;
+    private final LongSupplier millisClock;
+    private final Map<String, Integer> routeIds = new ConcurrentHashMap<>();
+    private final List<String> routes = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> lastCounts = new HashMap<>();
+    private boolean baselineTaken;
+    private long lastMinute = -1;
+
+    @Autowired
+    public VisitHistoryStore(VisitorCounterService visitorCounterService,
+                             @Value("${stats.history.directory:stats/history}") String directory,
+                             @Value("${stats.history.retention.minute:7d}") Duration minutes,
+                             @Value("${stats.history.retention.hour:90d}") Duration hours,
+                             @Value("${stats.history.retention.day:3650d}") Duration days) {
+        this(visitorCounterService, Paths.get(directory),
+                Map.of(Resolution.MINUTE, minutes, Resolution.HOUR, hours, Resolution.DAY, days),
+                System::currentTimeMillis);
+    }
+
+    VisitHistoryStore(VisitorCounterService visitorCounterService, Path directory,
+                      Map<Resolution, Duration> retention, LongSupplier millisClock) {
+        this.visitorCounterService = visitorCounterService;
+        this.directory = directory;
+        this.retention = retention;
+        this.millisClock = millisClock;
+    }
+
+    @PostConstruct
+    public void loadRoutes() {
+        Path path = directory.resolve(ROUTES_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            for (String route : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                routeIds.putIfAbsent(route, routes.size());
+                routes.add(route);
+            }
+        } catch (IOException e) {
+            log.warn("Could not read visit history routes {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the visits counted since the previous call to the minute that just ended.
+     * The first call after startup only records a baseline, since counters restored from a
+     * snapshot do not belong to that minute, and rolls up the periods missed while stopped.
+     */
+    @Scheduled(cron = "${stats.history.cron:0 * * * * *}")
+    public synchronized void tick() {
+        // Ticks fire at the start of a minute and cover the one before it
+        long minute = Math.floorDiv(millisClock.getAsLong() / 1000 - 30, 60) * 60;
+        Map<Integer, Long> deltas = new LinkedHashMap<>();
+        visitorCounterService.forEachVisitCount((route, count) -> {
+            Long previous = lastCounts.put(route, count);
+            long delta = count - (previous != null ? previous : 0);
+            if (baselineTaken && delta > 0) {
+                deltas.put(routeId(route), delta);
+            }
+        });
+        if (!baselineTaken) {
+            baselineTaken = true;
+            lastMinute = minute;
+            try {
+                rollUpClosed(Resolution.MINUTE, Resolution.HOUR, hourOf(minute));
+                rollUpClosed(Resolution.HOUR, Resolution.DAY, dayOf(minute));
+            } catch (IOException e) {
+                log.warn("Could not roll up visit history: {}", e.getMessage());
+            }
+            return;
+        }
+        try {
+            append(Resolution.MINUTE, minute, deltas);
+            if (hourOf(minute) != hourOf(lastMinute)) {
+                rollUp(Resolution.MINUTE, Resolution.HOUR, hourOf(lastMinute));
+                if (dayOf(minute) != dayOf(lastMinute)) {
+                    rollUp(Resolution.HOUR, Resolution.DAY, dayOf(lastMinute));
+                }
+                deleteExpired();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write visit history: {}", e.getMessage());
+        }
+        lastMinute = minute;
+    }
+
+    /**
+     * Visits of a route per period between {@code from} and {@code to}, both inclusive.
+     */
+    public List<VisitPointDto> getHistory(String route, Resolution resolution,
+                                          Instant from, Instant to) throws IOException {
+        Integer routeId = routeIds.get(route);
+        List<VisitPointDto> points = new ArrayList<>();
+        if (routeId == null) {
+            return points;
+        }
+        scan(resolution, from.getEpochSecond(), to.getEpochSecond(), routeId,
+                (timestamp, id, count) -> {
+                    VisitPointDto last = points.isEmpty() ? null : points.get(points.size() - 1);
+                    // Two records for one period only occur if ticks overlapped; merge them
+                    if (last != null && last.getTimestamp().getEpochSecond() == timestamp) {
+                        last.setCount(last.getCount() + count);
+                    } else {
+                        points.add(new VisitPointDto(Instant.ofEpochSecond(timestamp), count));
+                    }
+                });
+        return points;
+    }
+
+    private void rollUp(Resolution source, Resolution target, long start) throws IOException {
+        Map<Integer, Long> sums = new LinkedHashMap<>();
+        scan(source, start, start + target.seconds - 1, -1,
+                (timestamp, id, count) -> sums.merge(id, count, Long::sum));
+        append(target, start, sums);
+    }
+
+    /**
+     * Rolls up every period before {@code end} that has source records but was never rolled
+     * up, that is every period after the last record of the target resolution.
+     */
+    private void rollUpClosed(Resolution source, Resolution target, long end)
+            throws IOException {
+        List<LocalDate> partitions = partitions(source);
+        if (partitions.isEmpty()) {
+            return;
+        }
+        long from = partitions.get(0).toEpochDay() * Resolution.DAY.seconds;
+        long last = lastTimestamp(target);
+        if (last != Long.MIN_VALUE) {
+            from = Math.max(from, last + target.seconds);
+        }
+        if (from >= end) {
+            return;
+        }
+        Map<Long, Map<Integer, Long>> sums = new TreeMap<>();
+        scan(source, from, end - 1, -1, (timestamp, id, count) -> sums
+                .computeIfAbsent(Math.floorDiv(timestamp, target.seconds) * target.seconds,
+                        start -> new LinkedHashMap<>())
+                .merge(id, count, Long::sum));
+        for (Map.Entry<Long, Map<Integer, Long>> period : sums.entrySet()) {
+            append(target, period.getKey(), period.getValue());
+        }
+        if (!sums.isEmpty()) {
+            log.info("Rolled up {} {} periods of visit history missed while stopped",
+                    sums.size(), target.prefix);
+        }
+    }
+
+    private long lastTimestamp(Resolution resolution) throws IOException {
+        List<LocalDate> partitions = partitions(resolution);
+        for (int i = partitions.size() - 1; i >= 0; i--) {
+            Path path = directory.resolve(resolution.fileName(partitions.get(i)));
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long records = channel.size() / RECORD_BYTES;
+                if (records == 0) {
+                    continue;
+                }
+                return channel.map(FileChannel.MapMode.READ_ONLY,
+                        (records - 1) * RECORD_BYTES, Long.BYTES).getLong(0);
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    private List<LocalDate> partitions(Resolution resolution) throws IOException {
+        List<LocalDate> starts = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return starts;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                resolution.prefix + "-*.dat")) {
+            for (Path file : files) {
+                LocalDate start = resolution.parsePartition(file.getFileName().toString());
+                if (start != null) {
+                    starts.add(start);
+                }
+            }
+        }
+        Collections.sort(starts);
+        return starts;
+    }
+
+    private void append(Resolution resolution, long timestamp, Map<Integer, Long> counts)
+            throws IOException {
+        if (counts.isEmpty()) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(counts.size() * RECORD_BYTES);
+        counts.forEach((id, count) -> buffer.putLong(timestamp).putInt(id).putLong(count));
+        buffer.flip();
+        Files.createDirectories(directory);
+        Path path = directory.resolve(resolution.fileName(resolution.partitionStart(timestamp)));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private void scan(Resolution resolution, long from, long to, int routeId,
+                      RecordConsumer consumer) throws IOException {
+        LocalDate last = resolution.partitionStart(to);
+        for (LocalDate start = resolution.partitionStart(from); !start.isAfter(last);
+                start = resolution.nextPartition(start)) {
+            Path path = directory.resolve(resolution.fileName(start));
+            if (!Files.exists(path)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // A record being appended concurrently is ignored until it is complete
+                int records = (int) (channel.size() / RECORD_BYTES);
+                if (records == 0) {
+                    continue;
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                        (long) records * RECORD_BYTES);
+                for (int i = firstAtOrAfter(buffer, records, from); i < records; i++) {
+                    int offset = i * RECORD_BYTES;
+                    long timestamp = buffer.getLong(offset);
+                    if (timestamp > to) {
+                        break;
+                    }
+                    int id = buffer.getInt(offset + 8);
+                    if (routeId < 0 || id == routeId) {
+                        consumer.accept(timestamp, id, buffer.getLong(offset + 12));
+                    }
+                }
+            }
+        }
+    }
+
+    private static int firstAtOrAfter(ByteBuffer buffer, int records, long timestamp) {
+        int low = 0;
+        int high = records;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(mid * RECORD_BYTES) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void deleteExpired() throws IOException {
+        LocalDate today = LocalDate.ofInstant(Instant.ofEpochMilli(millisClock.getAsLong()),
+                ZoneOffset.UTC);
+        for (Resolution resolution : Resolution.values()) {
+            Duration keep = retention.get(resolution);
+            if (keep == null) {
+                continue;
+            }
+            LocalDate cutoff = today.minusDays(keep.toDays());
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                    resolution.prefix + "-*.dat")) {
+                for (Path file : files) {
+                    LocalDate start = resolution.parsePartition(file.getFileName().toString());
+                    if (start != null && resolution.nextPartition(start).isBefore(cutoff)) {
+                        Files.deleteIfExists(file);
+                        log.info("Deleted expired visit history {}", file);
+                    }
+                }
+            }
+        }
+    }
+
+    private int routeId(String route) {
+        Integer id = routeIds.get(route);
+        if (id != null) {
+            return id;
+        }
+        try {
+            Files.createDirectories(directory);
+            Files.writeString(directory.resolve(ROUTES_FILE), route + "\n",
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not register route " + route, e);
+        }
+        routeIds.put(route, routes.size());
+        routes.add(route);
+        return routes.size() - 1;
+    }
+
+    private static long hourOf(long epochSecond) {
+        return Math.floorDiv(epochSecond, Resolution.HOUR.seconds) * Resolution.HOUR.seconds;
+    }
+
+    private static long dayOf(long epochSecond) {
+        return Math.floorDiv(epochSecond, Resolution.DAY.seconds) * Resolution.DAY.seconds;
+    }
+
+    public enum Resolution {
+        MINUTE("minute", 60),
+        HOUR("hour", 3600),
+        DAY("day", 86400);
+
+        private final String prefix;
+        private final long seconds;
+
+        Resolution(String prefix, long seconds) {
+            this.prefix = prefix;
+            this.seconds = seconds;
+        }
+
+        /**
+         * Minutes are partitioned by day, hours by month and days by year.
+         */
+        private LocalDate partitionStart(long epochSecond) {
+            LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochSecond, DAY.seconds));
+            return switch (this) {
+                case MINUTE -> date;
+                case HOUR -> date.withDayOfMonth(1);
+                case DAY -> date.withDayOfYear(1);
+            };
+        }
+
+        private LocalDate nextPartition(LocalDate start) {
+            return switch (this) {
+                case MINUTE -> start.plusDays(1);
+                case HOUR -> start.plusMonths(1);
+                case DAY -> start.plusYears(1);
+            };
+        }
+
+        private String fileName(LocalDate start) {
+            String key = switch (this) {
+                case MINUTE -> start.toString();
+                case HOUR -> start.toString().substring(0, 7);
+                case DAY -> start.toString().substring(0, 4);
+            };
+            return prefix + "-" + key + ".dat";
+        }
+
+        private LocalDate parsePartition(String fileName) {
+            String key = fileName.substring(prefix.length() + 1, fileName.length() - 4);
+            try {
+                return switch (this) {
+                    case MINUTE -> LocalDate.parse(key);
+                    case HOUR -> LocalDate.parse(key + "-01");
+                    case DAY -> LocalDate.parse(key + "-01-01");
+                };
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordConsumer {
+        void accept(long timestamp, int routeId, long count);
+    }
+}
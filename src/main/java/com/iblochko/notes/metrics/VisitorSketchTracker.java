@@ -0,0 +1,58 @@
+package com.iblochko.notes.metrics;
+
+import com.iblochko.notes.dto.HotUrlDto;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjLongConsumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Unique clients per route and the most requested URLs, both in fixed memory.
+ */
+@Component
+public class VisitorSketchTracker {
+    private final int precision;
+    private final ConcurrentHashMap<String, HyperLogLog> uniqueClients = new ConcurrentHashMap<>();
+    private final HeavyHitters hotUrls;
+
+    public VisitorSketchTracker(@Value("${stats.sketch.hll-precision:12}") int precision,
+                                @Value("${stats.sketch.top-k:100}") int topK,
+                                @Value("${stats.sketch.cms-width:2048}") int width,
+                                @Value("${stats.sketch.cms-depth:4}") int depth) {
+        this.precision = precision;
+        this.hotUrls = new HeavyHitters(topK, width, depth);
+    }
+
+    public void record(String route, String url, String clientId) {
+        HyperLogLog clients = uniqueClients.get(route);
+        if (clients == null) {
+            clients = uniqueClients.computeIfAbsent(route, key -> new HyperLogLog(precision));
+        }
+        clients.add(clientId);
+        hotUrls.add(url);
+    }
+
+    public long getUniqueClients(String route) {
+        HyperLogLog clients = uniqueClients.get(route);
+        return clients != null ? clients.estimate() : 0;
+    }
+
+    public Map<String, Long> getAllUniqueClients() {
+        Map<String, Long> stats = new HashMap<>(uniqueClients.size() * 2);
+        uniqueClients.forEach((route, clients) -> stats.put(route, clients.estimate()));
+        return stats;
+    }
+
+    public void forEachUniqueClients(ObjLongConsumer<String> action) {
+        uniqueClients.forEach((route, clients) -> action.accept(route, clients.estimate()));
+    }
+
+    public List<HotUrlDto> getTopUrls(int limit) {
+        return hotUrls.top(limit).stream()
+                .map(entry -> new HotUrlDto(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+}
@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.List;
 import lombok.Data;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -68,6 +70,7 @@ public class Note {
             inverseJoinColumns = @JoinColumn(name = "tag_id")
     )
     @JsonManagedReference
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @Schema(description = "List of tags associated with the note")
     private List<Tag> tags = new ArrayList<>();
 }
\ No newline at end of file
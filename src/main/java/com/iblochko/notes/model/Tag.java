@@ -2,6 +2,7 @@ package com.iblochko.notes.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -11,15 +12,20 @@ import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.Data;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 @Data
 @Entity
 @Table(name = "tags")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @ToString
 @Schema(description = "Represents a tag in the system")
 public class Tag {
@@ -33,6 +39,11 @@ public class Tag {
     @Schema(description = "Name of the tag", example = "Work")
     private String name;
 
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    @Schema(description = "Version of the tag, incremented on every update", example = "3")
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JsonBackReference
     @ToString.Exclude
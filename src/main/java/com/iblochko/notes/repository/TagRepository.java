@@ -1,9 +1,13 @@
 package com.iblochko.notes.repository;
 
 import com.iblochko.notes.model.Tag;
+import jakarta.persistence.QueryHint;
 import java.util.Optional;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface TagRepository extends JpaRepository<Tag, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<Tag> findByName(String name);
 }
\ No newline at end of file
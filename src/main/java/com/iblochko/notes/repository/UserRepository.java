@@ -1,9 +1,13 @@
 package com.iblochko.notes.repository;
 
 import com.iblochko.notes.model.User;
+import jakarta.persistence.QueryHint;
 import java.util.Optional;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface UserRepository extends JpaRepository<User, String> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
 }
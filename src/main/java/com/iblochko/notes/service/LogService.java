@@ -1,7 +1,9 @@
 package com.iblochko.notes.service;
 
+import com.iblochko.notes.log.LogLines;
 import com.iblochko.notes.service.impl.LogServiceImpl;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import lombok.Getter;
@@ -10,12 +12,36 @@ import lombok.Setter;
 public interface LogService {
     String getLogsForDate(LocalDate date) throws IOException;
 
+    /**
+     * Up to {@code limit} of the date's log lines after skipping {@code offset}; the lines are
+     * only read from disk when written out.
+     */
+    LogLines getLogLines(LocalDate date, int offset, int limit) throws IOException;
+
     String createLogTask(String content, LocalDate date);
 
+    /**
+     * Queues an export of the date's logs; higher priorities run first.
+     *
+     * @throws com.iblochko.notes.exception.TooManyRequestsException if the queue is full
+     */
+    String createLogTask(String content, LocalDate date, int priority);
+
     LogServiceImpl.LogTask getTaskStatus(String taskId);
 
+    /**
+     * Cancels a queued or running task; returns null if there is no such task.
+     */
+    LogServiceImpl.LogTask cancelTask(String taskId);
+
     byte[] getLogFile(String taskId) throws IOException;
 
+    /**
+     * The artifact of a completed task, or null if the task is unknown, not completed or its
+     * file is gone. Lets callers send the file without reading it into memory.
+     */
+    Path getLogFilePath(String taskId);
+
     @Getter
     @Setter
     class LogTask {
@@ -23,16 +49,25 @@ public interface LogService {
             PENDING,
             PROCESSING,
             COMPLETED,
-            FAILED
+            FAILED,
+            CANCELLED;
+
+            public boolean isFinished() {
+                return this == COMPLETED || this == FAILED || this == CANCELLED;
+            }
         }
 
         private final String id;
         private final String content;
-        private LogServiceImpl.LogTask.Status status;
+        private volatile LogServiceImpl.LogTask.Status status;
+        private volatile int progress;
+        private int priority;
         private String filePath;
+        private long fileSize;
         private String errorMessage;
         private LocalDate date;
         private final LocalDateTime createdAt;
+        private volatile LocalDateTime finishedAt;
 
         public LogTask(String id, String content, LocalDate date) {
             this.id = id;
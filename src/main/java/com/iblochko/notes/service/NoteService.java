@@ -1,5 +1,6 @@
 package com.iblochko.notes.service;
 
+import com.iblochko.notes.cache.CachedJson;
 import com.iblochko.notes.dto.NoteDto;
 import com.iblochko.notes.model.Note;
 import java.util.List;
@@ -11,6 +12,10 @@ public interface NoteService {
 
     Note findNoteById(Long id);
 
+    String getNoteEtag(Long id);
+
+    CachedJson getNoteJson(Long id);
+
     List<Note> findNoteByTagName(String tagName);
 
     List<Note> findNoteByUsername(String username);
@@ -9,6 +9,8 @@ public interface TagService {
 
     Tag getTagById(Long id);
 
+    String getTagEtag(Long id);
+
     TagDto createTag(TagDto tagDto);
 
     TagDto updateTag(Long id, TagDto tagDto);
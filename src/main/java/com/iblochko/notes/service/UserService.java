@@ -7,6 +7,8 @@ import java.util.List;
 public interface UserService {
     User getUserByUsername(String username);
 
+    String getUserEtag(String username);
+
     List<User> getAllUsers();
 
     UserDto createUser(UserDto userDto);
@@ -1,6 +1,7 @@
 package com.iblochko.notes.service;
 
 import java.util.Map;
+import java.util.function.ObjLongConsumer;
 
 public interface VisitorCounterService {
     long registerVisit(String url);
@@ -10,4 +11,14 @@ public interface VisitorCounterService {
     long getTotalVisitCount();
 
     Map<String, Long> getAllStats();
+
+    /**
+     * Visits every counter in place, without copying them into a map.
+     */
+    void forEachVisitCount(ObjLongConsumer<String> action);
+
+    /**
+     * Adds previously saved counts on top of whatever was counted since startup.
+     */
+    void restore(Map<String, Long> counts, long total);
 }
@@ -1,37 +1,88 @@
 package com.iblochko.notes.service.impl;
 
+import com.iblochko.notes.exception.TooManyRequestsException;
+import com.iblochko.notes.job.JobContext;
+import com.iblochko.notes.job.JobScheduler;
+import com.iblochko.notes.job.ProgressOutputStream;
+import com.iblochko.notes.log.LogDateIndex;
+import com.iblochko.notes.log.LogLines;
+import com.iblochko.notes.log.LogMatches;
+import com.iblochko.notes.log.LogRange;
+import com.iblochko.notes.log.LogScanner;
 import com.iblochko.notes.service.LogService;
-import java.io.BufferedReader;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 
+@Slf4j
 @SuppressWarnings("ResultOfMethodCallIgnored")
 @Service
 public class LogServiceImpl implements LogService {
+    private static final long SCAN_CHUNK_BYTES = 8L * 1024 * 1024;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(5);
     private final ConcurrentHashMap<String, LogTask> tasks = new ConcurrentHashMap<>();
     private final String logDirectory = "logs";
+    private final LogScanner logScanner =
+            new LogScanner(Runtime.getRuntime().availableProcessors(), SCAN_CHUNK_BYTES);
 
     @Value("${logging.file.name}")
     private String logFilePath;
 
+    @Value("${logs.index.catch-up-bytes:67108864}")
+    private long indexCatchUpBytes = 64L * 1024 * 1024;
+
+    @Value("${logs.tasks.workers:4}")
+    private int taskWorkers = 4;
+
+    @Value("${logs.tasks.queue-capacity:100}")
+    private int taskQueueCapacity = 100;
+
+    @Value("${logs.tasks.timeout:10m}")
+    private Duration taskTimeout = Duration.ofMinutes(10);
+
+    @Value("${logs.tasks.ttl:1h}")
+    private Duration taskTtl = Duration.ofHours(1);
+
+    @Value("${logs.tasks.max-tasks:1000}")
+    private int taskLimit = 1000;
+
+    @Value("${logs.tasks.max-artifact-bytes:1073741824}")
+    private long artifactLimitBytes = 1024L * 1024 * 1024;
+
+    // Bytes of completed artifacts plus those reserved by exports still being written
+    private final AtomicLong artifactBytes = new AtomicLong();
+    private LogDateIndex dateIndex;
+    private JobScheduler taskScheduler;
+
     public LogServiceImpl() {
         File logDir = new File(logDirectory);
         if (!logDir.exists()) {
@@ -41,37 +92,161 @@ public class LogServiceImpl implements LogService {
 
     @Override
     public String getLogsForDate(LocalDate date) throws IOException {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        String dateString = date.format(formatter);
+        LogLines lines = getLogLines(date, 0, Integer.MAX_VALUE);
+        if (lines.getTotalLines() == 0) {
+            return "No logs found for date: " + date.format(DATE_FORMAT);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lines.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
 
+    @Override
+    public LogLines getLogLines(LocalDate date, int offset, int limit) throws IOException {
         Path path = Paths.get(logFilePath);
+        byte[] prefix = date.format(DATE_FORMAT).getBytes(StandardCharsets.US_ASCII);
+
+        // Days the rolling appender has closed are read from their own archive
+        Path archive = archiveFor(path, date, ".gz");
+        if (Files.exists(archive)) {
+            return archivePage(archive, prefix, offset, limit);
+        }
+        Path plainArchive = archiveFor(path, date, "");
+        if (Files.exists(plainArchive)) {
+            return archivePage(plainArchive, prefix, offset, limit);
+        }
+
         if (!Files.exists(path)) {
             throw new IOException("Log file does not exist");
         }
+        LogMatches matches = logScanner.scan(path, dateIndex(path).find(date), prefix);
+        if (matches.size() == 0) {
+            // Days logged before rotation was set up sit in the first rollover archive
+            Path preRotation = preRotationArchive(path, date);
+            if (preRotation != null) {
+                LogLines lines = archivePage(preRotation, prefix, offset, limit);
+                if (lines.getTotalLines() > 0) {
+                    return lines;
+                }
+            }
+        }
+        return LogLines.page(path, matches, offset, limit);
+    }
 
-        List<String> matchingLines = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(logFilePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith(dateString)) {
-                    matchingLines.add(line);
+    private LogLines archivePage(Path archive, byte[] prefix, int offset, int limit)
+            throws IOException {
+        if (archive.getFileName().toString().endsWith(".gz")) {
+            return LogLines.compressedPage(archive, logScanner.scanCompressed(archive, prefix),
+                    offset, limit);
+        }
+        List<LogRange> whole = List.of(new LogRange(0, Files.size(archive)));
+        return LogLines.page(archive, logScanner.scan(archive, whole, prefix), offset, limit);
+    }
+
+    /**
+     * Archive of a day as named by the rolling policy in logback-spring.xml, for example
+     * {@code notes-app.2023-05-15.log.gz} next to {@code notes-app.log}.
+     */
+    static Path archiveFor(Path logFile, LocalDate date, String suffix) {
+        String name = logFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String day = date.format(DATE_FORMAT);
+        String archive = dot > 0
+                ? name.substring(0, dot) + "." + day + name.substring(dot)
+                : name + "." + day;
+        return logFile.resolveSibling(archive + suffix);
+    }
+
+    /**
+     * The archive that may hold {@code date} although it is named after a later day, or
+     * {@code null}. The first rollover archives everything logged before rotation was set up
+     * under a single date, so only the oldest archive qualifies, and only for dates between
+     * its first logged day and its own date.
+     */
+    static Path preRotationArchive(Path logFile, LocalDate date) throws IOException {
+        String name = logFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = (dot > 0 ? name.substring(0, dot) : name) + ".";
+        String extension = dot > 0 ? name.substring(dot) : "";
+        Path directory = logFile.toAbsolutePath().getParent();
+        Path oldest = null;
+        LocalDate oldestDate = null;
+        try (DirectoryStream<Path> archives = Files.newDirectoryStream(directory,
+                base + "*")) {
+            for (Path archive : archives) {
+                String archiveName = archive.getFileName().toString();
+                int day = base.length();
+                if (archiveName.length() < day + 10) {
+                    continue;
+                }
+                String rest = archiveName.substring(day + 10);
+                if (!rest.equals(extension) && !rest.equals(extension + ".gz")) {
+                    continue;
+                }
+                LocalDate archiveDate = parseDate(archiveName.substring(day, day + 10));
+                if (archiveDate != null
+                        && (oldestDate == null || archiveDate.isBefore(oldestDate))) {
+                    oldest = archive;
+                    oldestDate = archiveDate;
                 }
             }
         }
-        if (matchingLines.isEmpty()) {
-            return "No logs found for date: " + dateString;
+        if (oldest == null || !date.isBefore(oldestDate)) {
+            return null;
         }
-        return String.join("\n", matchingLines);
+        LocalDate firstLogged = firstLoggedDate(oldest);
+        return firstLogged != null && !date.isBefore(firstLogged) ? oldest : null;
+    }
+
+    /**
+     * Date of the first line of a log file, which only decompresses its first bytes.
+     */
+    private static LocalDate firstLoggedDate(Path file) throws IOException {
+        try (InputStream in = file.getFileName().toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(file))
+                : Files.newInputStream(file)) {
+            byte[] day = in.readNBytes(10);
+            return day.length == 10 ? parseDate(new String(day, StandardCharsets.US_ASCII)) : null;
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value, DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private synchronized LogDateIndex dateIndex(Path path) {
+        if (dateIndex == null || !dateIndex.getLogFile().equals(path)) {
+            dateIndex = new LogDateIndex(path, indexCatchUpBytes);
+        }
+        return dateIndex;
     }
 
     @Override
     public String createLogTask(String content, LocalDate date) {
+        return createLogTask(content, date, 0);
+    }
+
+    @Override
+    public String createLogTask(String content, LocalDate date, int priority) {
+        evictOldest(taskLimit - 1, artifactLimitBytes);
+        if (tasks.size() >= taskLimit) {
+            throw new TooManyRequestsException("Too many log tasks are kept, try again later");
+        }
         String taskId = UUID.randomUUID().toString();
         LogTask task = new LogTask(taskId, content, date);
+        task.setPriority(priority);
         tasks.put(taskId, task);
 
-        executorService.submit(() -> processLogTask(task));
-
+        try {
+            taskScheduler().submit(taskId, priority, context -> processLogTask(task, context));
+        } catch (RejectedExecutionException e) {
+            tasks.remove(taskId);
+            throw new TooManyRequestsException("Too many log tasks are queued, try again later");
+        }
         return taskId;
     }
 
@@ -80,39 +255,220 @@ public class LogServiceImpl implements LogService {
         return tasks.get(taskId);
     }
 
+    @Override
+    public LogTask cancelTask(String taskId) {
+        LogTask task = tasks.get(taskId);
+        if (task != null && taskScheduler().cancel(taskId)) {
+            finish(task, LogTask.Status.CANCELLED, "Task was cancelled");
+        }
+        return task;
+    }
+
     @Override
     public byte[] getLogFile(String taskId) throws IOException {
+        Path path = getLogFilePath(taskId);
+        if (path == null) {
+            return null;
+        }
+
+        try {
+            return Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            // Evicted by the sweeper in the meantime
+            return null;
+        }
+    }
+
+    @Override
+    public Path getLogFilePath(String taskId) {
         LogTask task = tasks.get(taskId);
         if (task == null || task.getStatus() != LogTask.Status.COMPLETED) {
             return null;
         }
+        Path path = Paths.get(task.getFilePath());
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * Forgets finished tasks after their time to live and deletes their artifacts, along with
+     * artifacts of earlier runs that no task refers to.
+     */
+    @Scheduled(fixedDelayString = "${logs.tasks.sweep-interval-ms:60000}")
+    public void sweepTasks() {
+        LocalDateTime expiry = LocalDateTime.now().minus(taskTtl);
+        for (LogTask task : tasks.values()) {
+            if (task.getFinishedAt() != null && task.getFinishedAt().isBefore(expiry)) {
+                evict(task);
+            }
+        }
+        evictOldest(taskLimit, artifactLimitBytes);
 
-        return Files.readAllBytes(Paths.get(task.getFilePath()));
+        Path directory = Paths.get(logDirectory);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Instant orphanExpiry = Instant.now().minus(taskTtl);
+        try (DirectoryStream<Path> artifacts = Files.newDirectoryStream(directory,
+                "log_*.txt")) {
+            for (Path artifact : artifacts) {
+                String name = artifact.getFileName().toString();
+                String taskId = name.substring("log_".length(), name.length() - ".txt".length());
+                if (!tasks.containsKey(taskId)
+                        && Files.getLastModifiedTime(artifact).toInstant().isBefore(orphanExpiry)) {
+                    deleteQuietly(artifact);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep log task artifacts: {}", e.getMessage());
+        }
     }
 
-    private void processLogTask(LogTask task) {
-        try {
-            task.setStatus(LogTask.Status.PROCESSING);
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (taskScheduler != null) {
+            taskScheduler.shutdown();
+        }
+    }
+
+    private synchronized JobScheduler taskScheduler() {
+        if (taskScheduler == null) {
+            taskScheduler = new JobScheduler("log-task", taskWorkers, taskQueueCapacity,
+                    taskTimeout);
+        }
+        return taskScheduler;
+    }
 
-            try {
-                Thread.sleep(30000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                task.setStatus(LogTask.Status.FAILED);
-                task.setErrorMessage("Task processing was interrupted");
+    private void processLogTask(LogTask task, JobContext context) {
+        synchronized (task) {
+            if (task.getStatus() != LogTask.Status.PENDING) {
                 return;
             }
-
-            String fileName = logDirectory + File.separator + "log_" + task.getId() + ".txt";
-            try (FileWriter writer = new FileWriter(fileName)) {
-                writer.write(this.getLogsForDate(task.getDate()));
+            task.setStatus(LogTask.Status.PROCESSING);
+        }
+        Path file = Paths.get(logDirectory, "log_" + task.getId() + ".txt");
+        long reserved = 0;
+        try {
+            LogLines lines = getLogLines(task.getDate(), 0, Integer.MAX_VALUE);
+            byte[] header = ("Task: " + task.getId() + "\n"
+                    + "Date: " + task.getDate().format(DATE_FORMAT) + "\n"
+                    + "Content: " + task.getContent() + "\n\n").getBytes(StandardCharsets.UTF_8);
+            byte[] noLogs = lines.getTotalLines() == 0
+                    ? ("No logs found for date: " + task.getDate().format(DATE_FORMAT))
+                            .getBytes(StandardCharsets.UTF_8)
+                    : new byte[0];
+            long total = header.length + noLogs.length + lines.getLength();
+            if (total > artifactLimitBytes) {
+                throw new IllegalStateException("Export of " + total
+                        + " bytes exceeds the artifact limit of " + artifactLimitBytes + " bytes");
+            }
+            if (!reserveArtifactBytes(total)) {
+                throw new IllegalStateException("Export of " + total + " bytes does not fit "
+                        + "next to the artifacts being written, the limit is "
+                        + artifactLimitBytes + " bytes");
+            }
+            reserved = total;
+            try (OutputStream out = new ProgressOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file)), total, context,
+                    task::setProgress)) {
+                out.write(header);
+                out.write(noLogs);
+                lines.writeTo(out);
             }
-            task.setFilePath(fileName);
-            task.setStatus(LogTask.Status.COMPLETED);
+            task.setFilePath(file.toString());
+            task.setFileSize(Files.size(file));
+            artifactBytes.addAndGet(task.getFileSize() - reserved);
+            reserved = task.getFileSize();
+            if (!finish(task, LogTask.Status.COMPLETED, null)) {
+                deleteQuietly(file);
+                artifactBytes.addAndGet(-reserved);
+                return;
+            }
+            // From here on the bytes are released when the task is evicted
+            reserved = 0;
+            evictOldest(taskLimit, artifactLimitBytes);
         } catch (Exception e) {
-            task.setStatus(LogTask.Status.FAILED);
-            task.setErrorMessage(e.getMessage());
+            artifactBytes.addAndGet(-reserved);
+            deleteQuietly(file);
+            if (context.isTimedOut()) {
+                finish(task, LogTask.Status.FAILED, "Task timed out after " + taskTimeout);
+            } else if (context.isCancelled()) {
+                finish(task, LogTask.Status.CANCELLED, "Task was cancelled");
+            } else {
+                finish(task, LogTask.Status.FAILED, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Counts {@code bytes} towards the artifact limit before an export writes them, evicting
+     * finished tasks to make room, so exports running in parallel cannot overshoot the limit
+     * together.
+     */
+    private boolean reserveArtifactBytes(long bytes) {
+        evictOldest(taskLimit, artifactLimitBytes - bytes);
+        while (true) {
+            long current = artifactBytes.get();
+            if (current + bytes > artifactLimitBytes) {
+                return false;
+            }
+            if (artifactBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves the task to a final status unless it already has one.
+     */
+    private static boolean finish(LogTask task, LogTask.Status status, String errorMessage) {
+        synchronized (task) {
+            if (task.getStatus().isFinished()) {
+                return false;
+            }
+            task.setErrorMessage(errorMessage);
+            task.setFinishedAt(LocalDateTime.now());
+            task.setStatus(status);
+            return true;
+        }
+    }
+
+    /**
+     * Evicts finished tasks, oldest first, until at most {@code maxTasks} tasks and
+     * {@code maxBytes} of artifacts are left or only unfinished tasks remain.
+     */
+    private void evictOldest(int maxTasks, long maxBytes) {
+        if (tasks.size() <= maxTasks && artifactBytes.get() <= maxBytes) {
+            return;
+        }
+        List<LogTask> finished = tasks.values().stream()
+                .filter(task -> task.getFinishedAt() != null)
+                .sorted(Comparator.comparing(LogTask::getFinishedAt))
+                .toList();
+        for (LogTask task : finished) {
+            if (tasks.size() <= maxTasks && artifactBytes.get() <= maxBytes) {
+                return;
+            }
+            evict(task);
         }
     }
 
+    private void evict(LogTask task) {
+        if (!tasks.remove(task.getId(), task)) {
+            return;
+        }
+        if (task.getStatus() == LogTask.Status.COMPLETED) {
+            artifactBytes.addAndGet(-task.getFileSize());
+        }
+        if (task.getFilePath() != null) {
+            deleteQuietly(Paths.get(task.getFilePath()));
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Retried by the next sweep once the file is older than the time to live
+        }
+    }
 }
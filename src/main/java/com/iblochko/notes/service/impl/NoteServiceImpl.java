@@ -1,5 +1,9 @@
 package com.iblochko.notes.service.impl;
 
+import com.iblochko.notes.cache.CachedJson;
+import com.iblochko.notes.cache.CachedNote;
+import com.iblochko.notes.cache.NoteJsonSerializer;
+import com.iblochko.notes.cache.OffHeapContentStore;
 import com.iblochko.notes.dto.NoteDto;
 import com.iblochko.notes.exception.BadRequestException;
 import com.iblochko.notes.exception.ResourceNotFoundException;
@@ -12,12 +16,14 @@ import com.iblochko.notes.repository.TagRepository;
 import com.iblochko.notes.repository.UserRepository;
 import com.iblochko.notes.service.NoteService;
 import com.iblochko.notes.util.CacheUtil;
+import com.iblochko.notes.util.ETagUtil;
 import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import lombok.AllArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
@@ -31,6 +37,8 @@ public class NoteServiceImpl implements NoteService {
     private final TagRepository tagRepository;
     private final UserRepository userRepository;
     private final CacheUtil cacheUtil;
+    private final OffHeapContentStore contentStore;
+    private final NoteJsonSerializer noteJsonSerializer;
 
     @Override
     public NoteDto createNote(NoteDto noteDto) {
@@ -73,6 +81,8 @@ public class NoteServiceImpl implements NoteService {
         user.getNotes().add(savedNote);
 
         cacheUtil.evict("note_" + savedNote.getId());
+        // The new note is not yet a dependency of the cached user, whose note list changed
+        cacheUtil.evict("user_" + user.getUsername());
 
         return noteMapper.toDto(savedNote);
     }
@@ -117,21 +127,56 @@ public class NoteServiceImpl implements NoteService {
 
     @Override
     public Note findNoteById(Long id) {
-        String cacheKey = "note_" + id;
-
-        Note cachedNote = cacheUtil.get(cacheKey, Note.class);
-        if (cachedNote != null) {
-            return cachedNote;
+        CachedNote cached = getCachedNote(id);
+        Note note = cached.toNote();
+        if (note == null) {
+            // Off-heap content was dropped under memory pressure on this node only, so the
+            // entry is reloaded without an evict that would reach peers and dependents
+            cacheUtil.notes().remove(id, cached);
+            note = getCachedNote(id).toNote();
         }
+        return note != null ? note : loadNote(id);
+    }
+
+    @Override
+    public String getNoteEtag(Long id) {
+        // Metadata is enough for the tag, so off-heap content is not copied back
+        return ETagUtil.forNote(getCachedNote(id).getMetadata());
+    }
+
+    @Override
+    public CachedJson getNoteJson(Long id) {
+        return cacheUtil.noteJson().getOrLoad(id,
+                () -> noteJsonSerializer.serialize(findNoteById(id)),
+                noteJsonSerializer::isCacheable, json -> List.of("note_" + id));
+    }
 
-        Note note = noteRepository.findById(id)
+    private CachedNote getCachedNote(Long id) {
+        return cacheUtil.notes().getOrLoad(id,
+                () -> CachedNote.of(loadCacheableNote(id), contentStore),
+                cached -> tagKeys(cached.getMetadata()));
+    }
+
+    private static List<String> tagKeys(Note note) {
+        return note.getTags().stream()
+                .map(tag -> "tag_" + tag.getId())
+                .toList();
+    }
+
+    /**
+     * Cached notes are read after the session that loaded them is closed, and refreshes run
+     * without a request's session, so the associations the JSON needs are loaded up front.
+     */
+    private Note loadCacheableNote(Long id) {
+        Note note = loadNote(id);
+        Hibernate.initialize(note.getTags());
+        return note;
+    }
+
+    private Note loadNote(Long id) {
+        return noteRepository.findById(id)
                 .orElseThrow(() ->
                         new ResourceNotFoundException("Note with id " + id + " not found"));
-        if (note != null) {
-            cacheUtil.put(cacheKey, note);
-            return note;
-        }
-        return null;
     }
 
     @Override
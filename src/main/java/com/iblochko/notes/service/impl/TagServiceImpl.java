@@ -12,6 +12,7 @@ import com.iblochko.notes.repository.TagRepository;
 import com.iblochko.notes.repository.UserRepository;
 import com.iblochko.notes.service.TagService;
 import com.iblochko.notes.util.CacheUtil;
+import com.iblochko.notes.util.ETagUtil;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -36,20 +37,14 @@ public class TagServiceImpl implements TagService {
 
     @Override
     public Tag getTagById(Long id) {
-        String cacheKey = "tag_" + id;
-
-        Tag cachedTag = cacheUtil.get(cacheKey, Tag.class);
-        if (cachedTag != null) {
-            return cachedTag;
-        }
+        return cacheUtil.tags().getOrLoad(id, () -> tagRepository.findById(id)
+                .orElseThrow(()
+                        -> new ResourceNotFoundException("Tag with id " + id + " not found")));
+    }
 
-        Tag tag = tagRepository.findById(id).orElseThrow(()
-                -> new ResourceNotFoundException("Tag with id " + id + " not found"));
-        if (tag != null) {
-            cacheUtil.put(cacheKey, tag);
-            return tag;
-        }
-        return null;
+    @Override
+    public String getTagEtag(Long id) {
+        return ETagUtil.forTag(getTagById(id));
     }
 
     @Override
@@ -95,6 +90,10 @@ public class TagServiceImpl implements TagService {
         user.getTags().add(savedTag);
 
         cacheUtil.evict("tag_" + savedTag.getId());
+        // Linked notes do not depend on the new tag yet, but their tag lists changed
+        for (Note note : notes) {
+            cacheUtil.evict("note_" + note.getId());
+        }
 
         return tagMapper.toDto(savedTag);
     }
@@ -127,7 +126,11 @@ public class TagServiceImpl implements TagService {
             updatedTag = tagRepository.save(existingTag);
         }
 
+        // Notes that had the tag depend on it; newly linked notes are evicted explicitly
         cacheUtil.evict("tag_" + id);
+        for (Note note : notes) {
+            cacheUtil.evict("note_" + note.getId());
+        }
 
         return tagMapper.toDto(updatedTag);
     }
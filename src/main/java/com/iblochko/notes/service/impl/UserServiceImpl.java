@@ -10,8 +10,10 @@ import com.iblochko.notes.repository.TagRepository;
 import com.iblochko.notes.repository.UserRepository;
 import com.iblochko.notes.service.UserService;
 import com.iblochko.notes.util.CacheUtil;
+import com.iblochko.notes.util.ETagUtil;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
@@ -45,20 +47,27 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User getUserByUsername(String username) {
-        String cacheKey = "user_" + username;
-
-        User cachedUser = cacheUtil.get(cacheKey, User.class);
-        if (cachedUser != null) {
-            return cachedUser;
-        }
+        return cacheUtil.users().getOrLoad(username, () -> loadCacheableUser(username),
+                user -> user.getNotes().stream()
+                        .map(note -> "note_" + note.getId())
+                        .toList());
+    }
 
+    /**
+     * Cached users outlive the session that loaded them, and refreshes run without a
+     * request's session, so the notes and their tags the JSON needs are loaded up front.
+     */
+    private User loadCacheableUser(String username) {
         User user = userRepository.findByUsername(username).orElseThrow(()
                 -> new ResourceNotFoundException("User with name " + username + " not found"));
-        if (user != null) {
-            cacheUtil.put(cacheKey, user);
-            return user;
-        }
-        return null;
+        Hibernate.initialize(user.getNotes());
+        user.getNotes().forEach(note -> Hibernate.initialize(note.getTags()));
+        return user;
+    }
+
+    @Override
+    public String getUserEtag(String username) {
+        return ETagUtil.forUser(getUserByUsername(username));
     }
 
     @Override
@@ -92,6 +101,9 @@ public class UserServiceImpl implements UserService {
         noteRepository.deleteAll(user.getNotes());
         tagRepository.deleteAll(user.getTags());
 
+        // Notes and tags depend on nothing that is evicted here, so drop them explicitly
+        user.getNotes().forEach(note -> cacheUtil.evict("note_" + note.getId()));
+        user.getTags().forEach(tag -> cacheUtil.evict("tag_" + tag.getId()));
         cacheUtil.evict("user_" + username);
 
         userRepository.delete(user);
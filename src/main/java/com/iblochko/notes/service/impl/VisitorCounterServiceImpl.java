@@ -1,36 +1,61 @@
 package com.iblochko.notes.service.impl;
 
 import com.iblochko.notes.service.VisitorCounterService;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
 import org.springframework.stereotype.Service;
 
 
 @Service
 public class VisitorCounterServiceImpl implements VisitorCounterService {
-    private final Map<String, Long> urlCounters = new ConcurrentHashMap<>();
+    // LongAdder stripes its cells under contention, so concurrent visits never share a lock
+    private final ConcurrentHashMap<String, LongAdder> urlCounters = new ConcurrentHashMap<>();
 
-    private long totalCounter = 0;
+    private final LongAdder totalCounter = new LongAdder();
 
-    public synchronized long registerVisit(String url) {
-        totalCounter++;
+    @Override
+    public long registerVisit(String url) {
+        totalCounter.increment();
 
-        Long count = urlCounters.getOrDefault(url, 0L);
-        urlCounters.put(url, count + 1L);
+        LongAdder counter = urlCounters.get(url);
+        if (counter == null) {
+            counter = urlCounters.computeIfAbsent(url, key -> new LongAdder());
+        }
+        counter.increment();
 
-        return count;
+        return counter.sum();
     }
 
-    public synchronized long getVisitCount(String url) {
-        Long counter = urlCounters.get(url);
-        return counter != null ? counter : 0;
+    @Override
+    public long getVisitCount(String url) {
+        LongAdder counter = urlCounters.get(url);
+        return counter != null ? counter.sum() : 0;
     }
 
-    public synchronized long getTotalVisitCount() {
-        return totalCounter;
+    @Override
+    public long getTotalVisitCount() {
+        return totalCounter.sum();
     }
 
-    public synchronized Map<String, Long> getAllStats() {
-        return new ConcurrentHashMap<>(urlCounters);
+    @Override
+    public Map<String, Long> getAllStats() {
+        Map<String, Long> stats = new HashMap<>(urlCounters.size() * 2);
+        urlCounters.forEach((url, counter) -> stats.put(url, counter.sum()));
+        return stats;
+    }
+
+    @Override
+    public void forEachVisitCount(ObjLongConsumer<String> action) {
+        urlCounters.forEach((url, counter) -> action.accept(url, counter.sum()));
+    }
+
+    @Override
+    public void restore(Map<String, Long> counts, long total) {
+        counts.forEach((url, count) ->
+                urlCounters.computeIfAbsent(url, key -> new LongAdder()).add(count));
+        totalCounter.add(total);
     }
 }
@@ -0,0 +1,172 @@
+package com.iblochko.notes.service.impl;
+
+import com.iblochko.notes.service.VisitorCounterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically saves the visit counters to a binary file and restores them on startup, so
+ * statistics survive restarts.
+ *
+ * <p>The file holds a header, the total, one {@code (url, count)} record per URL and a CRC32
+ * of everything before it. It is written to a temp file and moved into place, so a crash
+ * mid-write leaves the previous snapshot intact. Counters are read without locking, so
+ * {@code registerVisit} is never blocked; visits landing during a snapshot go to the next one.
+ *
+ * <p>URLs are stored as a length and their UTF-8 bytes, since clients can register URLs longer
+ * than {@code writeUTF} allows. Files of the first format, which used {@code writeUTF}, are
+ * still read.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.snapshot.enabled", havingValue = "true",
+        matchIfMissing = true)
+public class VisitorCounterSnapshotService {
+    private static final int MAGIC = 0x56435332;
+    private static final int MAGIC_V1 = 0x56435331;
+
+    private final VisitorCounterService visitorCounterService;
+
+    @Value("${stats.snapshot.file:stats/visitor-counters.bin}")
+    private String snapshotFile;
+
+    public VisitorCounterSnapshotService(VisitorCounterService visitorCounterService) {
+        this.visitorCounterService = visitorCounterService;
+    }
+
+    @PostConstruct
+    public void restore() {
+        Path path = Paths.get(snapshotFile);
+        if (!Files.exists(path)) {
+            log.info("No visitor counter snapshot found at {}", path);
+            return;
+        }
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path)), crc))) {
+            int magic = in.readInt();
+            if (magic != MAGIC && magic != MAGIC_V1) {
+                log.warn("Ignoring visitor counter snapshot {}: unknown format", path);
+                return;
+            }
+            long fileSize = Files.size(path);
+            long total = in.readLong();
+            int size = in.readInt();
+            Map<String, Long> counts = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                String url = magic == MAGIC ? readString(in, fileSize) : in.readUTF();
+                counts.put(url, in.readLong());
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                log.warn("Ignoring visitor counter snapshot {}: checksum mismatch", path);
+                return;
+            }
+            visitorCounterService.restore(counts, total);
+            log.info("Restored {} visitor counters from {}", counts.size(), path);
+        } catch (IOException e) {
+            log.warn("Could not read visitor counter snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stats.snapshot.interval-ms:60000}",
+            initialDelayString = "${stats.snapshot.interval-ms:60000}")
+    public void snapshot() {
+        long total = visitorCounterService.getTotalVisitCount();
+        if (total == 0) {
+            return;
+        }
+        Map<String, Long> counts = visitorCounterService.getAllStats();
+
+        Path path = Paths.get(snapshotFile);
+        Path temp = null;
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            temp = Files.createTempFile(parent, "visitor-counters", ".tmp");
+            write(temp, total, counts);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Saved {} visitor counters to {}", counts.size(), path);
+        } catch (IOException e) {
+            log.warn("Could not write visitor counter snapshot {}: {}", path, e.getMessage());
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    private static void write(Path temp, long total, Map<String, Long> counts)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)), crc));
+            out.writeInt(MAGIC);
+            out.writeLong(total);
+            out.writeInt(counts.size());
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                byte[] url = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(url.length);
+                out.write(url);
+                out.writeLong(entry.getValue());
+            }
+            out.writeLong(crc.getValue());
+            out.flush();
+            // Otherwise the rename can reach the disk first and a crash leaves an empty file
+            channel.force(true);
+        }
+    }
+
+    private static String readString(DataInputStream in, long fileSize) throws IOException {
+        int length = in.readInt();
+        // A corrupt length must not allocate more than the file could hold
+        if (length < 0 || length > fileSize) {
+            throw new IOException("invalid URL length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Removes the temp file of a snapshot that failed before it was moved into place.
+     */
+    private static void deleteQuietly(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", temp, e.getMessage());
+        }
+    }
+}
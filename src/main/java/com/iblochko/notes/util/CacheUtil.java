@@ -1,47 +1,927 @@
 package com.iblochko.notes.util;
 
+import com.iblochko.notes.cache.CacheInvalidationBus;
+import com.iblochko.notes.cache.CachedJson;
+import com.iblochko.notes.cache.CachedNote;
+import com.iblochko.notes.cache.LongKeyedStore;
+import com.iblochko.notes.cache.ReleasableCacheValue;
+import com.iblochko.notes.config.CacheProperties;
+import com.iblochko.notes.model.Tag;
+import com.iblochko.notes.model.User;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Application cache, split into regions by key namespace (the part of the key before the first
+ * underscore). Each region has its own capacity and eviction policy, so a burst of one kind of
+ * entry no longer flushes the others. Regions keyed by entity id store the id as a primitive
+ * {@code long}; the typed views ({@link #notes()}, {@link #tags()}, ...) read them without
+ * building key strings. Qualified string keys such as {@code note_1} remain the identity used
+ * for invalidation, dependencies and snapshots.
+ */
 @Slf4j
 @Component
 public class CacheUtil {
-    private final Map<String, Object> cache = new ConcurrentHashMap<>();
-    private final int maxCacheSize;
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final List<IdRegion> idRegions = new ArrayList<>();
+    private final Map<String, NamedRegion> namedRegions = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // dependency key -> keys of the entries built from it, counted once per registered entry
+    private final Map<String, Map<String, Integer>> dependents = new ConcurrentHashMap<>();
+    private final CacheProperties properties;
+    private final LongSupplier nanoClock;
+    private final ThreadPoolExecutor refreshExecutor;
+    // null for standalone instances that do not share evictions with other nodes
+    private final CacheInvalidationBus invalidationBus;
+    // null where there is no database, refreshes then run without a transaction
+    private final TransactionTemplate refreshTransaction;
+
+    private final IdCache<CachedNote> notes;
+    private final IdCache<CachedJson> noteJson;
+    private final IdCache<Tag> tags;
+    private final NamedCache<User> users;
 
     CacheUtil() {
-        maxCacheSize = 100;
+        this(new CacheProperties(), null, System::nanoTime);
+    }
+
+    @Autowired
+    public CacheUtil(CacheProperties properties, CacheInvalidationBus invalidationBus,
+                     ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this(properties, invalidationBus, transactionManager.getIfAvailable(),
+                System::nanoTime);
+    }
+
+    CacheUtil(CacheProperties properties, LongSupplier nanoClock) {
+        this(properties, null, nanoClock);
+    }
+
+    CacheUtil(CacheProperties properties, CacheInvalidationBus invalidationBus,
+              LongSupplier nanoClock) {
+        this(properties, invalidationBus, null, nanoClock);
+    }
+
+    CacheUtil(CacheProperties properties, CacheInvalidationBus invalidationBus,
+              PlatformTransactionManager transactionManager, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.refreshExecutor = createRefreshExecutor(properties);
+        this.invalidationBus = invalidationBus;
+        this.refreshTransaction = readOnlyTransaction(transactionManager);
+        this.notes = new IdCache<>(addIdRegion("note"), CachedNote.class);
+        this.noteJson = new IdCache<>(addIdRegion("note_json"), CachedJson.class);
+        this.tags = new IdCache<>(addIdRegion("tag"), Tag.class);
+        this.users = new NamedCache<>(namedRegion("user"), User.class);
+        if (invalidationBus != null) {
+            invalidationBus.subscribe(this::onRemoteInvalidation);
+        }
+    }
+
+    public IdCache<CachedNote> notes() {
+        return notes;
+    }
+
+    public IdCache<CachedJson> noteJson() {
+        return noteJson;
+    }
+
+    public IdCache<Tag> tags() {
+        return tags;
+    }
+
+    public NamedCache<User> users() {
+        return users;
     }
 
     public <T> T get(String key, Class<T> type) {
-        Object value = cache.get(key);
-        if (value != null) {
-            log.info("Cache hit for key: {}", key);
-            return type.cast(value);
+        Region region = regionOf(key);
+        Object value = read(region, region.get(key));
+        if (log.isDebugEnabled()) {
+            log.debug(value != null ? "Cache hit for key: {}" : "Cache miss for key: {}", key);
         }
-        log.info("Cache miss for key: {}", key);
-        return null;
+        return type.cast(value);
     }
 
-    public void put(String key, Object value) {
-        if (cache.size() >= maxCacheSize) {
-            log.info("Cache is full, clearing...");
-            this.clear();
+    /**
+     * Returns the cached value for the key or loads it. Concurrent misses for the same key
+     * share a single in-flight load, so only the first caller runs the loader and the others
+     * wait for its result (or its exception). The loader is kept with the entry and reused
+     * for refresh-ahead when the key's namespace has a TTL.
+     */
+    public <T> T getOrLoad(String key, Class<T> type, Supplier<T> loader) {
+        return getOrLoad(key, type, loader, value -> true, value -> List.of());
+    }
+
+    /**
+     * Same as {@link #getOrLoad(String, Class, Supplier)}, and records the keys the loaded
+     * value was built from: evicting any of them also evicts this entry.
+     */
+    public <T> T getOrLoad(String key, Class<T> type, Supplier<T> loader,
+                           Function<? super T, ? extends Collection<String>> dependencies) {
+        return getOrLoad(key, type, loader, value -> true, dependencies);
+    }
+
+    /**
+     * Same as {@link #getOrLoad(String, Class, Supplier, Function)}, but a loaded value is only
+     * cached when it passes the predicate; rejected values are still returned to every waiting
+     * caller.
+     */
+    public <T> T getOrLoad(String key, Class<T> type, Supplier<T> loader,
+                           Predicate<? super T> cacheable,
+                           Function<? super T, ? extends Collection<String>> dependencies) {
+        T cached = get(key, type);
+        if (cached != null) {
+            return cached;
         }
-        cache.put(key, value);
-        log.info("Added to cache: {}", key);
+        return load(key, type, loader, cacheable, dependencies);
     }
 
+    public void put(String key, Object value) {
+        put(newEntry(regionOf(key), key, value, null, Set.of(), new LongAdder()));
+    }
+
+    /**
+     * Evicts the key and, transitively, every entry that depends on it, here and on the other
+     * instances. Other instances resolve dependents from their own entries. Inside a
+     * transaction the remote evictions are sent as one batch after commit, and nothing is sent
+     * on rollback.
+     */
     public void evict(String key) {
-        cache.remove(key);
-        log.info("Evicted from cache: {}", key);
+        evictLocally(key);
+        publishEviction(key);
     }
 
     public void clear() {
-        cache.clear();
+        forEachRegion(region -> region.clear(CacheUtil::release));
+        dependents.clear();
+        // Loads that started before the clear may carry data it was meant to drop
+        inFlight.clear();
         log.info("Cache cleared");
     }
 
-}
\ No newline at end of file
+    /**
+     * Keys of the most frequently read entries, hottest first.
+     */
+    public List<String> hottestKeys(int limit) {
+        List<CacheEntry> entries = new ArrayList<>();
+        forEachRegion(region -> region.forEach(entries::add));
+        return entries.stream()
+                .sorted(Comparator.comparingLong((CacheEntry e) -> e.hits.sum()).reversed())
+                .limit(limit)
+                .map(entry -> entry.key)
+                .toList();
+    }
+
+    public int size() {
+        int[] size = new int[1];
+        forEachRegion(region -> size[0] += region.size());
+        return size[0];
+    }
+
+    /**
+     * Reports size, hits, misses and capacity evictions of every region since startup.
+     */
+    public void forEachRegionStats(RegionStatsConsumer consumer) {
+        forEachRegion(region -> consumer.accept(region.name.isEmpty() ? "default" : region.name,
+                region.size(), region.hits.sum(), region.misses.sum(), region.evictions.sum()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private Object read(Region region, CacheEntry entry) {
+        if (entry == null) {
+            region.misses.increment();
+            return null;
+        }
+        long now = nanoClock.getAsLong();
+        if (entry.expiresAt != NEVER && now - entry.expiresAt >= 0) {
+            if (entry.region.remove(entry.key, entry)) {
+                discard(entry);
+            }
+            region.misses.increment();
+            log.info("Cache entry expired for key: {}", entry.key);
+            return null;
+        }
+        region.hits.increment();
+        entry.hits.increment();
+        entry.lastAccess = now;
+        if (entry.refreshAt != NEVER && now - entry.refreshAt >= 0) {
+            scheduleRefresh(entry);
+        }
+        return entry.value;
+    }
+
+    private <T> T load(String key, Class<T> type, Supplier<T> loader,
+                       Predicate<? super T> cacheable,
+                       Function<? super T, ? extends Collection<String>> dependencies) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            log.info("Joining in-flight load for key: {}", key);
+            return type.cast(await(existing));
+        }
+
+        try {
+            // Another load may have finished between the miss and the registration above
+            CacheEntry loaded = regionOf(key).get(key);
+            T value = loaded != null ? type.cast(loaded.value) : null;
+            if (value == null) {
+                value = loader.get();
+                if (value != null && cacheable.test(value)) {
+                    cacheLoaded(key, value, new Loader(loader, dependencies), future);
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private void evictLocally(String key) {
+        Deque<String> pending = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+        pending.add(key);
+        while (!pending.isEmpty()) {
+            String current = pending.poll();
+            // Entries may depend on each other in both directions, e.g. a user and its notes
+            if (!visited.add(current)) {
+                continue;
+            }
+            CacheEntry removed = regionOf(current).remove(current);
+            if (removed != null) {
+                discard(removed);
+            }
+            inFlight.remove(current);
+            Map<String, Integer> affected = dependents.remove(current);
+            if (affected != null) {
+                pending.addAll(affected.keySet());
+            }
+        }
+        log.info("Evicted from cache: {} ({} entries affected)", key, visited.size());
+    }
+
+    private void publishEviction(String key) {
+        if (invalidationBus == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidationBus.publish(List.of(key));
+            return;
+        }
+        PendingEvictions pending =
+                (PendingEvictions) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEvictions();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.keys.add(key);
+    }
+
+    private void onRemoteInvalidation(Collection<String> keys) {
+        if (keys.contains(CacheInvalidationBus.CLEAR_ALL)) {
+            clear();
+            return;
+        }
+        keys.forEach(this::evictLocally);
+    }
+
+    private void cacheLoaded(String key, Object value, Loader loader,
+                             CompletableFuture<Object> future) {
+        Set<String> dependencies = loader.dependenciesOf(value);
+        // Register before publishing the entry, so an evict of a dependency from now on
+        // reaches this key and drops the in-flight marker checked below
+        link(key, dependencies);
+        if (inFlight.get(key) != future) {
+            unlink(key, dependencies);
+            return;
+        }
+        Region region = regionOf(key);
+        CacheEntry entry = newEntry(region, key, value, loader, dependencies, new LongAdder());
+        put(entry);
+        // An evict that ran between the check and the put wins as well
+        if (inFlight.get(key) != future && region.remove(key, entry)) {
+            discard(entry);
+        }
+    }
+
+    private void put(CacheEntry entry) {
+        Region region = entry.region;
+        if (region.size() >= region.capacity && !region.containsKey(entry.key)) {
+            CacheEntry victim = region.removeVictim();
+            if (victim != null) {
+                region.evictions.increment();
+                discard(victim);
+                log.info("Region {} is full, evicted: {}", region.name, victim.key);
+            }
+        }
+        CacheEntry previous = region.put(entry.key, entry);
+        if (previous != null) {
+            discard(previous);
+        }
+        log.info("Added to cache: {}", entry.key);
+    }
+
+    private void link(String key, Set<String> dependencies) {
+        for (String dependency : dependencies) {
+            // compute() keeps the update atomic with a concurrent evict of the dependency
+            dependents.compute(dependency, (k, keys) -> {
+                Map<String, Integer> result = keys != null ? keys : new HashMap<>();
+                result.merge(key, 1, Integer::sum);
+                return result;
+            });
+        }
+    }
+
+    private void unlink(String key, Set<String> dependencies) {
+        for (String dependency : dependencies) {
+            dependents.computeIfPresent(dependency, (k, keys) -> {
+                keys.computeIfPresent(key, (k2, count) -> count > 1 ? count - 1 : null);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private void discard(CacheEntry entry) {
+        unlink(entry.key, entry.dependencies);
+        release(entry);
+    }
+
+    private CacheEntry newEntry(Region region, String key, Object value, Loader loader,
+                                Set<String> dependencies, LongAdder hits) {
+        long now = nanoClock.getAsLong();
+        Duration ttl = properties.getTtl().get(region.name);
+        if (ttl == null) {
+            return new CacheEntry(region, key, value, loader, dependencies, hits,
+                    NEVER, NEVER, now);
+        }
+        long ttlNanos = ttl.toNanos();
+        long refreshAt = loader != null
+                ? now + (long) (ttlNanos * properties.getRefreshAheadFactor())
+                : NEVER;
+        return new CacheEntry(region, key, value, loader, dependencies, hits,
+                now + ttlNanos, refreshAt, now);
+    }
+
+    private Region regionOf(String key) {
+        for (IdRegion region : idRegions) {
+            if (region.owns(key)) {
+                return region;
+            }
+        }
+        int separator = key.indexOf('_');
+        String namespace = separator > 0 ? key.substring(0, separator) : "";
+        for (IdRegion region : idRegions) {
+            // A key of an id namespace without a valid id, such as note_-
+            if (region.name.equals(namespace)) {
+                return namedRegion("");
+            }
+        }
+        return namedRegion(namespace);
+    }
+
+    private IdRegion addIdRegion(String name) {
+        IdRegion region = new IdRegion(name, regionProperties(name));
+        idRegions.add(region);
+        return region;
+    }
+
+    private NamedRegion namedRegion(String name) {
+        return namedRegions.computeIfAbsent(name,
+                key -> new NamedRegion(key, regionProperties(key)));
+    }
+
+    private CacheProperties.Region regionProperties(String name) {
+        CacheProperties.Region region = properties.getRegions().get(name);
+        return region != null ? region : new CacheProperties.Region();
+    }
+
+    private void forEachRegion(Consumer<Region> action) {
+        idRegions.forEach(action);
+        namedRegions.values().forEach(action);
+    }
+
+    private void scheduleRefresh(CacheEntry entry) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> refresh(entry));
+        } catch (RejectedExecutionException e) {
+            // Queue is full: a later read retries, the entry is still served until it expires
+            entry.refreshing.set(false);
+        }
+    }
+
+    private void refresh(CacheEntry entry) {
+        try {
+            // Refresh threads have no session of their own, while loaders and dependency
+            // functions may walk lazy associations
+            Refreshed result = refreshTransaction != null
+                    ? refreshTransaction.execute(status -> reload(entry))
+                    : reload(entry);
+            if (result == null) {
+                entry.refreshing.set(false);
+                return;
+            }
+            Set<String> dependencies = result.dependencies;
+            link(entry.key, dependencies);
+            CacheEntry refreshed = newEntry(entry.region, entry.key, result.value, entry.loader,
+                    dependencies, entry.hits);
+            // Only replace the entry we refreshed; an evict or a newer put wins over us
+            if (entry.region.replace(entry.key, entry, refreshed)) {
+                discard(entry);
+                log.info("Refreshed cache entry for key: {}", entry.key);
+            } else {
+                discard(refreshed);
+            }
+        } catch (RuntimeException e) {
+            entry.refreshing.set(false);
+            log.warn("Refresh failed for key {}: {}", entry.key, e.getMessage());
+        }
+    }
+
+    private static Refreshed reload(CacheEntry entry) {
+        Object value = entry.loader.supplier.get();
+        return value != null ? new Refreshed(value, entry.loader.dependenciesOf(value)) : null;
+    }
+
+    /**
+     * Read-only transaction for loads that run outside a request, or {@code null} without a
+     * transaction manager.
+     */
+    public static TransactionTemplate readOnlyTransaction(
+            PlatformTransactionManager transactionManager) {
+        if (transactionManager == null) {
+            return null;
+        }
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private static ThreadPoolExecutor createRefreshExecutor(CacheProperties properties) {
+        int threads = Math.max(1, properties.getRefreshThreads());
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getRefreshQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "cache-refresh-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static void release(CacheEntry entry) {
+        if (entry != null && entry.value instanceof ReleasableCacheValue releasable) {
+            releasable.release();
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface RegionStatsConsumer {
+        void accept(String region, long size, long hits, long misses, long evictions);
+    }
+
+    /**
+     * Typed view of a region keyed by entity id. Hits are served without boxing the id or
+     * building the key string, which is only created on a miss.
+     */
+    public final class IdCache<V> {
+        private final IdRegion region;
+        private final Class<V> type;
+
+        private IdCache(IdRegion region, Class<V> type) {
+            this.region = region;
+            this.type = type;
+        }
+
+        public V get(long id) {
+            Object value = read(region, region.store.get(id));
+            if (log.isDebugEnabled()) {
+                log.debug(value != null ? "Cache hit for key: {}" : "Cache miss for key: {}",
+                        key(id));
+            }
+            return type.cast(value);
+        }
+
+        public V getOrLoad(long id, Supplier<V> loader) {
+            return getOrLoad(id, loader, value -> true, value -> List.of());
+        }
+
+        public V getOrLoad(long id, Supplier<V> loader,
+                           Function<? super V, ? extends Collection<String>> dependencies) {
+            return getOrLoad(id, loader, value -> true, dependencies);
+        }
+
+        public V getOrLoad(long id, Supplier<V> loader, Predicate<? super V> cacheable,
+                           Function<? super V, ? extends Collection<String>> dependencies) {
+            V cached = get(id);
+            if (cached != null) {
+                return cached;
+            }
+            return load(key(id), type, loader, cacheable, dependencies);
+        }
+
+        public void evict(long id) {
+            CacheUtil.this.evict(key(id));
+        }
+
+        /**
+         * Drops the entry on this node if it still holds {@code expected}. Unlike an evict this
+         * is not a data change: nothing is published to other nodes and entries that depend
+         * on this one are kept.
+         */
+        public boolean remove(long id, V expected) {
+            CacheEntry entry = region.store.get(id);
+            if (entry == null || entry.value != expected || !region.remove(entry.key, entry)) {
+                return false;
+            }
+            discard(entry);
+            log.info("Removed from local cache: {}", entry.key);
+            return true;
+        }
+
+        public String key(long id) {
+            return region.prefix + id;
+        }
+    }
+
+    /**
+     * Typed view of a region keyed by name, such as users by username.
+     */
+    public final class NamedCache<V> {
+        private final NamedRegion region;
+        private final Class<V> type;
+
+        private NamedCache(NamedRegion region, Class<V> type) {
+            this.region = region;
+            this.type = type;
+        }
+
+        public V get(String name) {
+            Object value = read(region, region.entries.get(name));
+            if (log.isDebugEnabled()) {
+                log.debug(value != null ? "Cache hit for key: {}" : "Cache miss for key: {}",
+                        key(name));
+            }
+            return type.cast(value);
+        }
+
+        public V getOrLoad(String name, Supplier<V> loader) {
+            return getOrLoad(name, loader, value -> List.of());
+        }
+
+        public V getOrLoad(String name, Supplier<V> loader,
+                           Function<? super V, ? extends Collection<String>> dependencies) {
+            V cached = get(name);
+            if (cached != null) {
+                return cached;
+            }
+            return load(key(name), type, loader, value -> true, dependencies);
+        }
+
+        public void evict(String name) {
+            CacheUtil.this.evict(key(name));
+        }
+
+        public String key(String name) {
+            return region.prefix + name;
+        }
+    }
+
+    private abstract static class Region {
+        final String name;
+        final String prefix;
+        final int capacity;
+        final int evictionSamples;
+        final ToLongFunction<CacheEntry> score;
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+
+        Region(String name, CacheProperties.Region properties) {
+            this.name = name;
+            this.prefix = name.isEmpty() ? "" : name + "_";
+            this.capacity = Math.max(1, properties.getCapacity());
+            this.evictionSamples = Math.max(1, properties.getEvictionSamples());
+            this.score = properties.getEviction() == CacheProperties.EvictionPolicy.LFU
+                    ? entry -> entry.hits.sum()
+                    : entry -> entry.lastAccess;
+        }
+
+        abstract CacheEntry get(String key);
+
+        abstract CacheEntry put(String key, CacheEntry entry);
+
+        abstract CacheEntry remove(String key);
+
+        abstract boolean remove(String key, CacheEntry entry);
+
+        abstract boolean replace(String key, CacheEntry expected, CacheEntry entry);
+
+        abstract boolean containsKey(String key);
+
+        abstract int size();
+
+        abstract CacheEntry removeVictim();
+
+        abstract void forEach(Consumer<CacheEntry> action);
+
+        abstract void clear(Consumer<CacheEntry> onRemoved);
+    }
+
+    private static final class IdRegion extends Region {
+        private final LongKeyedStore<CacheEntry> store = new LongKeyedStore<>();
+
+        private IdRegion(String name, CacheProperties.Region properties) {
+            super(name, properties);
+        }
+
+        /**
+         * Whether the key is the prefix followed by a number that fits a {@code long}; other
+         * keys of the namespace, such as {@code note_-} or overlong ids, go to a named region.
+         */
+        private boolean owns(String key) {
+            int length = key.length();
+            if (length <= prefix.length() || !key.startsWith(prefix)) {
+                return false;
+            }
+            int digits = key.charAt(prefix.length()) == '-' ? prefix.length() + 1 : prefix.length();
+            if (digits == length) {
+                return false;
+            }
+            for (int i = digits; i < length; i++) {
+                char c = key.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            // Up to 18 digits always fit; longer ids are rare enough to parse
+            if (length - digits < 19) {
+                return true;
+            }
+            try {
+                idOf(key);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private long idOf(String key) {
+            return Long.parseLong(key, prefix.length(), key.length(), 10);
+        }
+
+        @Override
+        CacheEntry get(String key) {
+            return store.get(idOf(key));
+        }
+
+        @Override
+        CacheEntry put(String key, CacheEntry entry) {
+            return store.put(idOf(key), entry);
+        }
+
+        @Override
+        CacheEntry remove(String key) {
+            return store.remove(idOf(key));
+        }
+
+        @Override
+        boolean remove(String key, CacheEntry entry) {
+            return store.remove(idOf(key), entry);
+        }
+
+        @Override
+        boolean replace(String key, CacheEntry expected, CacheEntry entry) {
+            return store.replace(idOf(key), expected, entry);
+        }
+
+        @Override
+        boolean containsKey(String key) {
+            return store.containsKey(idOf(key));
+        }
+
+        @Override
+        int size() {
+            return store.size();
+        }
+
+        @Override
+        CacheEntry removeVictim() {
+            return store.removeLowest(evictionSamples, score);
+        }
+
+        @Override
+        void forEach(Consumer<CacheEntry> action) {
+            store.forEach(action);
+        }
+
+        @Override
+        void clear(Consumer<CacheEntry> onRemoved) {
+            store.clear(onRemoved);
+        }
+    }
+
+    private static final class NamedRegion extends Region {
+        // keyed by the part of the key after the namespace, e.g. the username
+        private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+
+        private NamedRegion(String name, CacheProperties.Region properties) {
+            super(name, properties);
+        }
+
+        private String nameOf(String key) {
+            return key.substring(prefix.length());
+        }
+
+        @Override
+        CacheEntry get(String key) {
+            return entries.get(nameOf(key));
+        }
+
+        @Override
+        CacheEntry put(String key, CacheEntry entry) {
+            return entries.put(nameOf(key), entry);
+        }
+
+        @Override
+        CacheEntry remove(String key) {
+            return entries.remove(nameOf(key));
+        }
+
+        @Override
+        boolean remove(String key, CacheEntry entry) {
+            return entries.remove(nameOf(key), entry);
+        }
+
+        @Override
+        boolean replace(String key, CacheEntry expected, CacheEntry entry) {
+            return entries.replace(nameOf(key), expected, entry);
+        }
+
+        @Override
+        boolean containsKey(String key) {
+            return entries.containsKey(nameOf(key));
+        }
+
+        @Override
+        int size() {
+            return entries.size();
+        }
+
+        @Override
+        CacheEntry removeVictim() {
+            // Named regions are small, so the victim is picked from all entries
+            CacheEntry victim = null;
+            for (CacheEntry entry : entries.values()) {
+                if (victim == null || score.applyAsLong(entry) < score.applyAsLong(victim)) {
+                    victim = entry;
+                }
+            }
+            return victim != null && remove(victim.key, victim) ? victim : null;
+        }
+
+        @Override
+        void forEach(Consumer<CacheEntry> action) {
+            entries.values().forEach(action);
+        }
+
+        @Override
+        void clear(Consumer<CacheEntry> onRemoved) {
+            entries.keySet().forEach(name -> onRemoved.accept(entries.remove(name)));
+        }
+    }
+
+    private static final class Loader {
+        private final Supplier<?> supplier;
+        private final Function<Object, ? extends Collection<String>> dependencies;
+
+        @SuppressWarnings("unchecked")
+        private <T> Loader(Supplier<T> supplier,
+                           Function<? super T, ? extends Collection<String>> dependencies) {
+            this.supplier = supplier;
+            this.dependencies = (Function<Object, ? extends Collection<String>>) dependencies;
+        }
+
+        private Set<String> dependenciesOf(Object value) {
+            Collection<String> keys = dependencies.apply(value);
+            return keys == null || keys.isEmpty() ? Set.of() : Set.copyOf(keys);
+        }
+    }
+
+    private static final class Refreshed {
+        private final Object value;
+        private final Set<String> dependencies;
+
+        private Refreshed(Object value, Set<String> dependencies) {
+            this.value = value;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private static final class CacheEntry {
+        private final Region region;
+        private final String key;
+        private final Object value;
+        private final Loader loader;
+        private final Set<String> dependencies;
+        private final LongAdder hits;
+        private final long expiresAt;
+        private final long refreshAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        // Written racily by readers; only used to rank eviction candidates
+        private long lastAccess;
+
+        private CacheEntry(Region region, String key, Object value, Loader loader,
+                           Set<String> dependencies, LongAdder hits,
+                           long expiresAt, long refreshAt, long lastAccess) {
+            this.region = region;
+            this.key = key;
+            this.value = value;
+            this.loader = loader;
+            this.dependencies = dependencies;
+            this.hits = hits;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private final class PendingEvictions implements TransactionSynchronization {
+        private final Set<String> keys = new LinkedHashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CacheUtil.this);
+            if (status != STATUS_COMMITTED) {
+                return;
+            }
+            // Readers may have cached pre-commit rows while the transaction was running
+            keys.forEach(CacheUtil.this::evictLocally);
+            invalidationBus.publish(keys);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.iblochko.notes.util;
+
+import com.iblochko.notes.model.Note;
+import com.iblochko.notes.model.Tag;
+import com.iblochko.notes.model.User;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Strong entity tags for the JSON representations of notes, tags and users.
+ *
+ * <p>A tag covers everything that ends up in the response body: the entity's own version
+ * (or {@code updatedAt} for notes) plus the versions of the embedded entities.
+ */
+public final class ETagUtil {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETagUtil() {
+    }
+
+    public static String forNote(Note note) {
+        long hash = mix(FNV_OFFSET, 'n');
+        hash = mixNote(hash, note);
+        return format(hash);
+    }
+
+    public static String forTag(Tag tag) {
+        long hash = mix(FNV_OFFSET, 't');
+        hash = mixTag(hash, tag);
+        return format(hash);
+    }
+
+    public static String forUser(User user) {
+        long hash = mix(FNV_OFFSET, 'u');
+        hash = mix(hash, user.getUsername());
+        hash = mix(hash, user.getVersion());
+        List<Note> notes = user.getNotes();
+        if (notes != null) {
+            for (Note note : notes) {
+                hash = mixNote(hash, note);
+            }
+        }
+        return format(hash);
+    }
+
+    /**
+     * Tag of the gzip-encoded variant of a representation. A strong tag identifies the exact
+     * bytes, so the encoded body gets its own tag rather than sharing the identity one.
+     */
+    public static String forGzip(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    /**
+     * Evaluates an {@code If-None-Match} header against the current tag, using the weak
+     * comparison the header is defined with.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String current = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value) || opaque(value).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long mixNote(long hash, Note note) {
+        hash = mix(hash, note.getId());
+        hash = mix(hash, note.getUpdatedAt());
+        List<Tag> tags = note.getTags();
+        if (tags != null) {
+            for (Tag tag : tags) {
+                hash = mixTag(hash, tag);
+            }
+        }
+        return hash;
+    }
+
+    private static long mixTag(long hash, Tag tag) {
+        hash = mix(hash, tag.getId());
+        return mix(hash, tag.getVersion());
+    }
+
+    private static long mix(long hash, LocalDateTime time) {
+        if (time == null) {
+            return mix(hash, (Long) null);
+        }
+        hash = mix(hash, time.toEpochSecond(ZoneOffset.UTC));
+        return mix(hash, (long) time.getNano());
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mix(hash, 0);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = mix(hash, value.charAt(i));
+        }
+        return mix(hash, value.length());
+    }
+
+    private static long mix(long hash, Long value) {
+        if (value == null) {
+            return mix(hash, 0);
+        }
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash = mix(hash, (int) (value >>> shift) & 0xff);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private static String format(long hash) {
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -0,0 +1,56 @@
+package com.iblochko.notes.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sends a byte range of a file as the response body without copying it through the heap.
+ *
+ * <p>Where the connector supports it, Tomcat is handed the file and writes it to the socket
+ * with {@code sendfile} after the handler returns. Otherwise the range is copied with
+ * {@link FileChannel#transferTo}.
+ */
+public final class FileTransferUtil {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileTransferUtil() {
+    }
+
+    /**
+     * Writes the bytes {@code [start, end)} of the file. Status and headers other than the
+     * content length must be set before.
+     */
+    public static void send(HttpServletRequest request, HttpServletResponse response, Path file,
+                            long start, long end) throws IOException {
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod()) || start >= end) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, out);
+                if (sent == 0 && position >= channel.size()) {
+                    throw new IOException("File ended before offset " + end + ": " + file);
+                }
+                position += sent;
+            }
+        }
+    }
+}
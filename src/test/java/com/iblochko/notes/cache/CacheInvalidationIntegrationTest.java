@@ -0,0 +1,108 @@
+package com.iblochko.notes.cache;
+
+import com.iblochko.notes.config.CacheProperties;
+import com.iblochko.notes.util.CacheUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Starts two application contexts in one JVM, as two nodes sharing the in-JVM bus.
+ */
+class CacheInvalidationIntegrationTest {
+
+    private AnnotationConfigApplicationContext nodeA;
+    private AnnotationConfigApplicationContext nodeB;
+    private CacheUtil cacheA;
+    private CacheUtil cacheB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = startNode();
+        nodeB = startNode();
+        cacheA = nodeA.getBean(CacheUtil.class);
+        cacheB = nodeB.getBean(CacheUtil.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    private static AnnotationConfigApplicationContext startNode() {
+        return new AnnotationConfigApplicationContext(
+                CacheProperties.class, InMemoryInvalidationBus.class, CacheUtil.class);
+    }
+
+    @Test
+    void evict_OnOneNode_ShouldEvictOnOtherNodes() {
+        cacheA.put("note_1", "a");
+        cacheB.put("note_1", "b");
+        cacheB.put("note_2", "b");
+
+        cacheA.evict("note_1");
+
+        assertNull(cacheA.get("note_1", String.class));
+        assertNull(cacheB.get("note_1", String.class));
+        assertEquals("b", cacheB.get("note_2", String.class));
+    }
+
+    @Test
+    void evict_InsideTransaction_ShouldPublishBatchAfterCommit() {
+        cacheB.put("note_1", "b");
+        cacheB.put("tag_1", "b");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheA.evict("note_1");
+            cacheA.evict("tag_1");
+
+            assertEquals("b", cacheB.get("note_1", String.class));
+            assertEquals("b", cacheB.get("tag_1", String.class));
+
+            TransactionSynchronizationUtils.triggerAfterCompletion(
+                    TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(cacheB.get("note_1", String.class));
+        assertNull(cacheB.get("tag_1", String.class));
+    }
+
+    @Test
+    void evict_InsideRolledBackTransaction_ShouldNotPublish() {
+        cacheB.put("note_1", "b");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheA.evict("note_1");
+            TransactionSynchronizationUtils.triggerAfterCompletion(
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("b", cacheB.get("note_1", String.class));
+        assertFalse(TransactionSynchronizationManager.hasResource(cacheA));
+    }
+
+    @Test
+    void closedNode_ShouldNoLongerReceiveEvictions() {
+        AnnotationConfigApplicationContext nodeC = startNode();
+        CacheUtil cacheC = nodeC.getBean(CacheUtil.class);
+        cacheC.put("note_1", "c");
+        nodeC.close();
+
+        cacheA.evict("note_1");
+
+        assertEquals("c", cacheC.get("note_1", String.class));
+    }
+}
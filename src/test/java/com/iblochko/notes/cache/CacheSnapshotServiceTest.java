@@ -0,0 +1,125 @@
+package com.iblochko.notes.cache;
+
+import com.iblochko.notes.exception.ResourceNotFoundException;
+import com.iblochko.notes.service.NoteService;
+import com.iblochko.notes.service.TagService;
+import com.iblochko.notes.service.UserService;
+import com.iblochko.notes.util.CacheUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheSnapshotServiceTest {
+
+    @Mock
+    private CacheUtil cacheUtil;
+
+    @Mock
+    private NoteService noteService;
+
+    @Mock
+    private TagService tagService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @InjectMocks
+    private CacheSnapshotService snapshotService;
+
+    @TempDir
+    Path tempDir;
+
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() {
+        snapshotFile = tempDir.resolve("snapshot").resolve("cache-snapshot.txt");
+        ReflectionTestUtils.setField(snapshotService, "snapshotFile", snapshotFile.toString());
+        ReflectionTestUtils.setField(snapshotService, "maxKeys", 10);
+        ReflectionTestUtils.setField(snapshotService, "warmupThreads", 2);
+        ReflectionTestUtils.setField(snapshotService, "warmupTimeoutMs", 5000L);
+    }
+
+    @Test
+    void snapshot_ShouldWriteHottestKeys() throws IOException {
+        when(cacheUtil.hottestKeys(10)).thenReturn(List.of("note_1", "tag_2", "user_alice"));
+
+        snapshotService.snapshot();
+
+        assertEquals(List.of("note_1", "tag_2", "user_alice"), Files.readAllLines(snapshotFile));
+    }
+
+    @Test
+    void snapshot_WithEmptyCache_ShouldKeepPreviousFile() throws IOException {
+        Files.createDirectories(snapshotFile.getParent());
+        Files.write(snapshotFile, List.of("note_1"));
+        when(cacheUtil.hottestKeys(10)).thenReturn(List.of());
+
+        snapshotService.snapshot();
+
+        assertEquals(List.of("note_1"), Files.readAllLines(snapshotFile));
+    }
+
+    @Test
+    void snapshot_WhenMoveFails_ShouldDeleteTempFile() throws IOException {
+        Files.createDirectories(snapshotFile.resolve("occupied"));
+        when(cacheUtil.hottestKeys(10)).thenReturn(List.of("note_1"));
+
+        snapshotService.snapshot();
+
+        try (Stream<Path> files = Files.list(snapshotFile.getParent())) {
+            assertEquals(List.of(snapshotFile), files.toList());
+        }
+    }
+
+    @Test
+    void run_ShouldReloadSnapshotKeysThroughServices() throws IOException {
+        Files.createDirectories(snapshotFile.getParent());
+        Files.write(snapshotFile, List.of("note_1", "tag_2", "user_alice", "", "unknown_3"));
+
+        snapshotService.run(null);
+
+        verify(noteService).findNoteById(1L);
+        verify(tagService).getTagById(2L);
+        verify(userService).getUserByUsername("alice");
+    }
+
+    @Test
+    void run_ShouldSkipKeysThatNoLongerExist() throws IOException {
+        Files.createDirectories(snapshotFile.getParent());
+        Files.write(snapshotFile, List.of("note_1", "note_2"));
+        when(noteService.findNoteById(1L))
+                .thenThrow(new ResourceNotFoundException("Note with id 1 not found"));
+
+        assertDoesNotThrow(() -> snapshotService.run(null));
+
+        verify(noteService).findNoteById(2L);
+    }
+
+    @Test
+    void run_WithoutSnapshotFile_ShouldDoNothing() {
+        snapshotService.run(null);
+
+        verifyNoInteractions(noteService, tagService, userService);
+    }
+}
@@ -0,0 +1,94 @@
+package com.iblochko.notes.cache;
+
+import com.iblochko.notes.config.CacheProperties;
+import com.iblochko.notes.mapper.NoteMapper;
+import com.iblochko.notes.mapper.TagMapper;
+import com.iblochko.notes.mapper.UserMapper;
+import com.iblochko.notes.model.Note;
+import com.iblochko.notes.model.Tag;
+import com.iblochko.notes.model.User;
+import com.iblochko.notes.repository.NoteRepository;
+import com.iblochko.notes.repository.TagRepository;
+import com.iblochko.notes.repository.UserRepository;
+import com.iblochko.notes.service.impl.NoteServiceImpl;
+import com.iblochko.notes.service.impl.TagServiceImpl;
+import com.iblochko.notes.service.impl.UserServiceImpl;
+import com.iblochko.notes.util.CacheUtil;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Warms the cache through the real services and repositories, so lazy associations are loaded
+ * the way they are on startup: on pool threads without a request session.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database=h2",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "cache.snapshot.enabled=true"
+})
+@AutoConfigureJson
+@Import({CacheProperties.class, InMemoryInvalidationBus.class, CacheUtil.class,
+        OffHeapContentStore.class, NoteJsonSerializer.class, NoteMapper.class, TagMapper.class,
+        UserMapper.class, NoteServiceImpl.class, TagServiceImpl.class, UserServiceImpl.class,
+        CacheSnapshotService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CacheSnapshotWarmupIntegrationTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private CacheUtil cacheUtil;
+
+    @Autowired
+    private CacheSnapshotService snapshotService;
+
+    @Test
+    void warm_ShouldCacheNotesAndUsersWithTheirLazyAssociations() {
+        User user = new User();
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("secret");
+        userRepository.save(user);
+        Tag tag = new Tag();
+        tag.setName("work");
+        tag.setUser(user);
+        tagRepository.save(tag);
+        Note note = new Note();
+        note.setTitle("Shopping list");
+        note.setContent("Milk, bread, honey");
+        note.setUser(user);
+        note.getTags().add(tag);
+        Long id = noteRepository.save(note).getId();
+
+        snapshotService.warm(List.of("note_" + id, "note_json_" + id, "user_alice",
+                "tag_" + tag.getId()));
+
+        CachedNote cachedNote = cacheUtil.notes().get(id);
+        assertNotNull(cachedNote);
+        assertEquals("work", cachedNote.getMetadata().getTags().get(0).getName());
+        assertNotNull(cacheUtil.noteJson().get(id));
+        assertNotNull(cacheUtil.tags().get(tag.getId()));
+        User cachedUser = cacheUtil.users().get("alice");
+        assertNotNull(cachedUser);
+        assertTrue(Hibernate.isInitialized(cachedUser.getNotes()));
+        assertEquals("Shopping list", cachedUser.getNotes().get(0).getTitle());
+        assertTrue(Hibernate.isInitialized(cachedUser.getNotes().get(0).getTags()));
+    }
+}
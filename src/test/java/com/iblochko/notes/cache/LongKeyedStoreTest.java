@@ -0,0 +1,101 @@
+package com.iblochko.notes.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongKeyedStoreTest {
+
+    @Test
+    void operations_ShouldMatchHashMap() {
+        LongKeyedStore<String> store = new LongKeyedStore<>();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2000) - 100;
+            switch (random.nextInt(4)) {
+                case 0, 1 -> assertEquals(expected.put(key, "v" + i), store.put(key, "v" + i));
+                case 2 -> assertEquals(expected.remove(key), store.remove(key));
+                default -> assertEquals(expected.get(key), store.get(key));
+            }
+        }
+
+        assertEquals(expected.size(), store.size());
+        expected.forEach((key, value) -> assertEquals(value, store.get(key)));
+    }
+
+    @Test
+    void removeAndReplace_ShouldOnlyApplyToExpectedValue() {
+        LongKeyedStore<String> store = new LongKeyedStore<>();
+        store.put(1L, "first");
+
+        assertFalse(store.replace(1L, "other", "second"));
+        assertTrue(store.replace(1L, "first", "second"));
+        assertFalse(store.remove(1L, "first"));
+        assertTrue(store.remove(1L, "second"));
+        assertNull(store.get(1L));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void removeLowest_ShouldRemoveLowestScoredSample() {
+        LongKeyedStore<Long> store = new LongKeyedStore<>();
+        for (long i = 1; i <= 4; i++) {
+            store.put(i, i * 10);
+        }
+
+        Long removed = store.removeLowest(16, value -> value);
+
+        assertEquals(10L, removed);
+        assertNull(store.get(1L));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void clear_ShouldHandOverEveryValue() {
+        LongKeyedStore<String> store = new LongKeyedStore<>();
+        for (long i = 0; i < 100; i++) {
+            store.put(i, "v" + i);
+        }
+        List<String> removed = new ArrayList<>();
+
+        store.clear(removed::add);
+
+        assertEquals(100, removed.size());
+        assertEquals(0, store.size());
+        assertNull(store.get(5L));
+    }
+
+    @Test
+    void concurrentReadsAndWrites_ShouldNotLoseEntries() throws Exception {
+        LongKeyedStore<Long> store = new LongKeyedStore<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final long base = t * 100_000L;
+            tasks.add(executor.submit(() -> {
+                for (long i = 0; i < 10_000; i++) {
+                    store.put(base + i, base + i);
+                    assertEquals(base + i, store.get(base + i));
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(80_000, store.size());
+    }
+}
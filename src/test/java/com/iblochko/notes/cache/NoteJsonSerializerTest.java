@@ -0,0 +1,59 @@
+package com.iblochko.notes.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.iblochko.notes.model.Note;
+import com.iblochko.notes.util.ETagUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteJsonSerializerTest {
+
+    private ObjectMapper objectMapper;
+    private Note note;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        note = new Note();
+        note.setId(1L);
+        note.setTitle("Test Note");
+        note.setTags(new ArrayList<>());
+        note.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 12, 0));
+    }
+
+    @Test
+    void serialize_SmallNote_ShouldSkipGzip() throws IOException {
+        note.setContent("short");
+        NoteJsonSerializer serializer = new NoteJsonSerializer(objectMapper, 16384, 1024);
+
+        CachedJson json = serializer.serialize(note);
+
+        assertNull(json.getGzip());
+        assertEquals(ETagUtil.forNote(note), json.getEtag());
+        assertEquals("short", objectMapper.readTree(json.getJson()).get("content").asText());
+        assertTrue(serializer.isCacheable(json));
+    }
+
+    @Test
+    void serialize_LargeNote_ShouldGzipAndNotBeCacheable() throws IOException {
+        note.setContent("x".repeat(20000));
+        NoteJsonSerializer serializer = new NoteJsonSerializer(objectMapper, 16384, 1024);
+
+        CachedJson json = serializer.serialize(note);
+
+        assertNotNull(json.getGzip());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(json.getGzip()))) {
+            assertArrayEquals(json.getJson(), gzip.readAllBytes());
+        }
+        assertFalse(serializer.isCacheable(json));
+    }
+}
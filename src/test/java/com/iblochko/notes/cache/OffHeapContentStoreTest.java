@@ -0,0 +1,95 @@
+package com.iblochko.notes.cache;
+
+import com.iblochko.notes.model.Note;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapContentStoreTest {
+
+    private static byte[] payload(int length, int seed) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + seed);
+        }
+        return data;
+    }
+
+    @Test
+    void putAndGet_ShouldRoundTripAcrossChunks() {
+        OffHeapContentStore store = new OffHeapContentStore(4096, 1024, 256, 16);
+        byte[] data = payload(1000, 1);
+
+        long handle = store.put(data);
+
+        assertNotEquals(OffHeapContentStore.NO_HANDLE, handle);
+        assertArrayEquals(data, store.get(handle));
+        assertEquals(1000, store.usedBytes());
+    }
+
+    @Test
+    void accepts_ShouldRespectThresholdAndBudget() {
+        OffHeapContentStore store = new OffHeapContentStore(4096, 1024, 256, 100);
+
+        assertFalse(store.accepts(99));
+        assertTrue(store.accepts(100));
+        assertFalse(store.accepts(5000));
+    }
+
+    @Test
+    void put_WhenBudgetExhausted_ShouldEvictLeastRecentlyRead() {
+        OffHeapContentStore store = new OffHeapContentStore(2048, 1024, 256, 16);
+        long first = store.put(payload(1024, 1));
+        long second = store.put(payload(1024, 2));
+
+        store.get(first);
+        long third = store.put(payload(512, 3));
+
+        assertNotNull(store.get(first));
+        assertNull(store.get(second));
+        assertArrayEquals(payload(512, 3), store.get(third));
+        assertEquals(2048, store.reservedBytes());
+    }
+
+    @Test
+    void put_WhenPayloadExceedsBudget_ShouldReturnNoHandle() {
+        OffHeapContentStore store = new OffHeapContentStore(1024, 1024, 256, 16);
+
+        assertEquals(OffHeapContentStore.NO_HANDLE, store.put(payload(2000, 1)));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void remove_ShouldFreeChunksForReuse() {
+        OffHeapContentStore store = new OffHeapContentStore(1024, 1024, 256, 16);
+        long handle = store.put(payload(1024, 1));
+
+        store.remove(handle);
+        long reused = store.put(payload(1024, 2));
+
+        assertNull(store.get(handle));
+        assertTrue(Arrays.equals(payload(1024, 2), store.get(reused)));
+        assertEquals(1024, store.usedBytes());
+    }
+
+    @Test
+    void cachedNote_ShouldKeepOnlyMetadataOnHeapForLargeContent() {
+        OffHeapContentStore store = new OffHeapContentStore(4096, 1024, 256, 16);
+        Note note = new Note();
+        note.setId(1L);
+        note.setTitle("Large");
+        note.setContent("x".repeat(600));
+
+        CachedNote cached = CachedNote.of(note, store);
+
+        assertTrue(cached.isOffHeap());
+        assertNull(cached.getMetadata().getContent());
+        assertEquals(note.getContent(), cached.toNote().getContent());
+
+        cached.release();
+        assertNull(cached.toNote());
+        assertEquals(0, store.usedBytes());
+    }
+}
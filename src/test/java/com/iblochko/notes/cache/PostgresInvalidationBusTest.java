@@ -0,0 +1,54 @@
+package com.iblochko.notes.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostgresInvalidationBusTest {
+
+    private final PostgresInvalidationBus bus =
+            new PostgresInvalidationBus("jdbc:postgresql://localhost/notes", "notes", "");
+
+    @Test
+    void payloads_ShouldSplitLargeBatchesBelowNotifyLimit() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            keys.add("note_" + i);
+        }
+
+        List<String> payloads = bus.payloads(keys);
+
+        assertTrue(payloads.size() > 1);
+        int delivered = 0;
+        for (String payload : payloads) {
+            assertTrue(payload.length() < 8000);
+            delivered += payload.substring(payload.indexOf('|') + 1).split("\n").length;
+        }
+        assertEquals(keys.size(), delivered);
+    }
+
+    @Test
+    void publish_ShouldQueueBatchesWithoutOpeningConnection() {
+        bus.publish(List.of("note_1", "tag_2"));
+        bus.publish(List.of());
+        bus.publish(List.of("user_a"));
+
+        assertEquals(2, bus.queued());
+    }
+
+    @Test
+    void deliver_ShouldIgnoreOwnMessages() {
+        List<Collection<String>> received = new ArrayList<>();
+        bus.subscribe(received::add);
+
+        bus.deliver(bus.payloads(List.of("note_1")).get(0));
+        bus.deliver("other-node|note_1\ntag_2");
+
+        assertEquals(1, received.size());
+        assertEquals(List.of("note_1", "tag_2"), received.get(0));
+    }
+}
@@ -0,0 +1,67 @@
+package com.iblochko.notes.interceptor;
+
+import com.iblochko.notes.dto.LatencyStatsDto;
+import com.iblochko.notes.metrics.LatencyTracker;
+import com.iblochko.notes.metrics.RequestRateTracker;
+import com.iblochko.notes.metrics.VisitorSketchTracker;
+import com.iblochko.notes.service.impl.VisitorCounterServiceImpl;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCounterInterceptorTest {
+
+    private VisitorCounterServiceImpl visitorCounterService;
+    private VisitorSketchTracker visitorSketchTracker;
+    private LatencyTracker latencyTracker;
+    private RequestCounterInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        visitorCounterService = new VisitorCounterServiceImpl();
+        visitorSketchTracker = new VisitorSketchTracker(12, 10, 256, 4);
+        latencyTracker = new LatencyTracker();
+        interceptor = new RequestCounterInterceptor(visitorCounterService,
+                new RouteKeyResolver("template", 1000, "/**"), new RequestRateTracker(),
+                visitorSketchTracker, latencyTracker);
+    }
+
+    @Test
+    void preHandle_ShouldCountAsyncRequestOnce_AndTimeItUntilCompletion()
+            throws InterruptedException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/logs");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/logs");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, new Object());
+        Thread.sleep(50);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, new Object());
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertEquals(1, visitorCounterService.getVisitCount("/logs"));
+        assertEquals(1, visitorSketchTracker.getTopUrls(1).get(0).getCount());
+        List<LatencyStatsDto> latencies = latencyTracker.getLatencies();
+        assertEquals(1, latencies.size());
+        assertEquals(1, latencies.get(0).getCount());
+        assertTrue(latencies.get(0).getP50() >= 45, "p50 was " + latencies.get(0).getP50());
+    }
+
+    @Test
+    void preHandle_ShouldCountEveryRequestDispatch() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/notes/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/notes/{id}");
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+        interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+
+        assertEquals(2, visitorCounterService.getVisitCount("/notes/{id}"));
+    }
+}
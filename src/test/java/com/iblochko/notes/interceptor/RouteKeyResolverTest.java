@@ -0,0 +1,43 @@
+package com.iblochko.notes.interceptor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteKeyResolverTest {
+
+    @Test
+    void resolve_ShouldUseMatchedRouteTemplate() {
+        RouteKeyResolver resolver = new RouteKeyResolver("template", 1000, "/**");
+
+        assertEquals("/notes/{id}", resolver.resolve(request("/notes/1", "/notes/{id}")));
+        assertEquals("/notes/{id}", resolver.resolve(request("/notes/2", "/notes/{id}")));
+    }
+
+    @Test
+    void resolve_ShouldUseOverflowKey_WhenNoRouteMatched() {
+        RouteKeyResolver resolver = new RouteKeyResolver("template", 1000, "/**");
+
+        assertEquals("/**", resolver.resolve(request("/unknown/42", null)));
+    }
+
+    @Test
+    void resolve_InRawMode_ShouldCapDistinctUris() {
+        RouteKeyResolver resolver = new RouteKeyResolver("raw", 2, "/**");
+
+        assertEquals("/notes/1", resolver.resolve(request("/notes/1", "/notes/{id}")));
+        assertEquals("/notes/2", resolver.resolve(request("/notes/2", "/notes/{id}")));
+        assertEquals("/**", resolver.resolve(request("/notes/3", "/notes/{id}")));
+        assertEquals("/notes/1", resolver.resolve(request("/notes/1", "/notes/{id}")));
+    }
+
+    private static MockHttpServletRequest request(String uri, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (pattern != null) {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,102 @@
+package com.iblochko.notes.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobSchedulerTest {
+
+    private JobScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void submit_ShouldRunHigherPriorityFirst_AndRejectWhenQueueIsFull()
+            throws InterruptedException {
+        scheduler = new JobScheduler("test", 1, 3, Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        List<String> order = new CopyOnWriteArrayList<>();
+        scheduler.submit("blocker", 0, context -> {
+            started.countDown();
+            release.await();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        scheduler.submit("low", 0, context -> record(order, "low", done));
+        scheduler.submit("high", 5, context -> record(order, "high", done));
+        scheduler.submit("low2", 0, context -> record(order, "low2", done));
+        assertThrows(RejectedExecutionException.class,
+                () -> scheduler.submit("rejected", 9, context -> { }));
+        assertEquals(3, scheduler.getQueued());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("high", "low", "low2"), order);
+    }
+
+    @Test
+    void cancel_ShouldDropQueuedJob_AndInterruptRunningOne() throws InterruptedException {
+        scheduler = new JobScheduler("test", 1, 10, Duration.ofSeconds(10));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean cancelledSeen = new AtomicBoolean();
+        AtomicBoolean queuedRan = new AtomicBoolean();
+        scheduler.submit("running", 0, context -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                cancelledSeen.set(context.isCancelled());
+            }
+            finished.countDown();
+        });
+        scheduler.submit("queued", 0, context -> queuedRan.set(true));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(scheduler.cancel("queued"));
+        assertTrue(scheduler.cancel("running"));
+        assertFalse(scheduler.cancel("running"));
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertTrue(cancelledSeen.get());
+        assertEquals(0, scheduler.getQueued());
+        assertFalse(queuedRan.get());
+    }
+
+    @Test
+    void submit_ShouldInterruptJob_WhenItExceedsTimeout() throws InterruptedException {
+        scheduler = new JobScheduler("test", 1, 10, Duration.ofMillis(100));
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean timedOut = new AtomicBoolean();
+        scheduler.submit("slow", 0, context -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                timedOut.set(context.isTimedOut());
+            }
+            finished.countDown();
+        });
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertTrue(timedOut.get());
+    }
+
+    private static void record(List<String> order, String name, CountDownLatch done) {
+        order.add(name);
+        done.countDown();
+    }
+}
@@ -0,0 +1,134 @@
+package com.iblochko.notes.log;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogDateIndexTest {
+
+    private static final LocalDate MAY_15 = LocalDate.of(2023, 5, 15);
+    private static final LocalDate MAY_16 = LocalDate.of(2023, 5, 16);
+
+    @TempDir
+    Path tempDir;
+
+    private Path logFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        logFile = tempDir.resolve("app.log");
+        write("2023-05-15 10:00:00 INFO  first\n"
+                + "java.lang.IllegalStateException: boom\n"
+                + "\tat com.iblochko.notes.Foo.bar(Foo.java:1)\n"
+                + "2023-05-15 11:00:00 INFO  second\n"
+                + "2023-05-16 09:00:00 INFO  third\n");
+    }
+
+    @Test
+    void find_ShouldReturnRangeOfDayIncludingUndatedLines() throws IOException {
+        LogDateIndex index = new LogDateIndex(logFile, Long.MAX_VALUE);
+
+        List<LogRange> ranges = index.find(MAY_15);
+
+        assertEquals(1, ranges.size());
+        String text = read(ranges.get(0));
+        assertTrue(text.startsWith("2023-05-15 10:00:00"));
+        assertTrue(text.contains("IllegalStateException"));
+        assertTrue(text.endsWith("second\n"));
+        assertTrue(read(index.find(MAY_16).get(0)).startsWith("2023-05-16"));
+        assertTrue(index.find(LocalDate.of(2023, 5, 17)).isEmpty());
+    }
+
+    @Test
+    void find_ShouldExtendIndex_WhenLogGrows() throws IOException {
+        LogDateIndex index = new LogDateIndex(logFile, Long.MAX_VALUE);
+        index.find(MAY_16);
+
+        append("2023-05-16 10:00:00 INFO  fourth\n2023-05-17 08:00:00 INFO  fifth");
+
+        List<LogRange> may16 = index.find(MAY_16);
+        assertEquals(1, may16.size());
+        assertTrue(read(may16.get(0)).endsWith("fourth\n"));
+        // The last line has no newline yet and is served without being indexed
+        assertEquals("2023-05-17 08:00:00 INFO  fifth",
+                read(index.find(LocalDate.of(2023, 5, 17)).get(0)));
+    }
+
+    @Test
+    void find_ShouldReuseSidecar_AndRebuildWhenLogIsReplaced() throws IOException {
+        new LogDateIndex(logFile, Long.MAX_VALUE).find(MAY_15);
+        Path sidecar = tempDir.resolve("app.log.idx");
+        assertTrue(Files.exists(sidecar));
+
+        List<LogRange> reloaded = new LogDateIndex(logFile, Long.MAX_VALUE).find(MAY_15);
+        assertEquals(1, reloaded.size());
+
+        write("2023-06-01 08:00:00 INFO  rotated\n");
+        LogDateIndex index = new LogDateIndex(logFile, Long.MAX_VALUE);
+        assertTrue(index.find(MAY_15).isEmpty());
+        assertEquals(1, index.find(LocalDate.of(2023, 6, 1)).size());
+    }
+
+    @Test
+    void find_ShouldBinarySearch_WhileIndexIsCatchingUp() throws IOException {
+        StringBuilder log = new StringBuilder();
+        for (int day = 1; day <= 28; day++) {
+            for (int i = 0; i < 50; i++) {
+                log.append(String.format("2023-02-%02d 12:00:%02d INFO  entry %d\n", day, i, i));
+                if (i % 10 == 0) {
+                    log.append("\tat com.iblochko.notes.Foo.bar(Foo.java:1)\n");
+                }
+            }
+        }
+        write(log.toString());
+        LogDateIndex index = new LogDateIndex(logFile, 1024);
+
+        for (int day = 1; day <= 28; day++) {
+            List<LogRange> ranges = index.find(LocalDate.of(2023, 2, day));
+            assertEquals(1, ranges.size());
+            String text = read(ranges.get(0));
+            String prefix = String.format("2023-02-%02d", day);
+            assertTrue(text.startsWith(prefix + " 12:00:00"));
+            assertEquals(50, text.lines().filter(line -> line.startsWith(prefix)).count());
+        }
+        assertTrue(index.find(LocalDate.of(2023, 3, 1)).isEmpty());
+    }
+
+    @Test
+    void dayOf_ShouldRejectMalformedPrefixes() {
+        assertEquals(LocalDate.of(2023, 7, 1).toEpochDay(), dayOf("2023-07-01T12:34"));
+        assertEquals(LogDateIndex.NO_DATE, dayOf("2023/07/01"));
+        assertEquals(LogDateIndex.NO_DATE, dayOf("07-01-2023"));
+        assertEquals(LogDateIndex.NO_DATE, dayOf("2023-13-01"));
+        assertEquals(LogDateIndex.NO_DATE, dayOf("2023-07"));
+    }
+
+    private static long dayOf(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+        return LogDateIndex.dayOf(bytes, Math.min(bytes.length, LogDateIndex.DATE_LENGTH));
+    }
+
+    private void write(String text) throws IOException {
+        Files.writeString(logFile, text, StandardCharsets.UTF_8);
+    }
+
+    private void append(String text) throws IOException {
+        Files.writeString(logFile, text, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private String read(LogRange range) throws IOException {
+        byte[] bytes = Files.readAllBytes(logFile);
+        return new String(bytes, (int) range.getStart(), (int) range.length(),
+                StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+package com.iblochko.notes.log;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLinesTest {
+
+    private static final String BODY = "2023-05-15 a\n2023-05-15 bb\n2023-05-15 ccc";
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private LogMatches matches;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("app.log");
+        Files.writeString(file, "2023-05-15 a\r\n2023-05-16 x\n2023-05-15 bb\n2023-05-15 ccc\n",
+                StandardCharsets.UTF_8);
+        matches = new LogScanner(2, 1024).scan(file, List.of(new LogRange(0, Files.size(file))),
+                "2023-05-15".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void writeTo_ShouldJoinLinesWithNewlines() throws IOException {
+        LogLines lines = LogLines.page(file, matches, 0, Integer.MAX_VALUE);
+
+        assertEquals(3, lines.getLineCount());
+        assertEquals(BODY.length(), lines.getLength());
+        assertEquals(BODY, write(lines, 0, lines.getLength()));
+    }
+
+    @Test
+    void writeTo_ShouldWriteAnyByteRangeOfTheBody() throws IOException {
+        LogLines lines = LogLines.page(file, matches, 0, Integer.MAX_VALUE);
+
+        for (int start = 0; start <= BODY.length(); start++) {
+            for (int end = start; end <= BODY.length(); end++) {
+                assertEquals(BODY.substring(start, end), write(lines, start, end));
+            }
+        }
+    }
+
+    @Test
+    void page_ShouldSkipOffsetAndLimitLines() throws IOException {
+        LogLines page = LogLines.page(file, matches, 1, 1);
+
+        assertEquals(1, page.getLineCount());
+        assertEquals(3, page.getTotalLines());
+        assertEquals("2023-05-15 bb", write(page, 0, page.getLength()));
+        assertEquals(0, LogLines.page(file, matches, 5, 10).getLineCount());
+        assertEquals(0, LogLines.page(file, matches, 5, 10).getLength());
+    }
+
+    private static String write(LogLines lines, long start, long end) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lines.writeTo(out, start, end);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
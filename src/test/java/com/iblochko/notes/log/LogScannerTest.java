@@ -0,0 +1,83 @@
+package com.iblochko.notes.log;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogScannerTest {
+
+    private static final byte[] PREFIX = "2023-05-15".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path tempDir;
+
+    private final LogScanner scanner = new LogScanner(4, 64);
+
+    @Test
+    void scan_ShouldMatchLinesAcrossChunksInFileOrder() throws IOException {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            String date = i % 3 == 0 ? "2023-05-16" : "2023-05-15";
+            log.append(date).append(" 10:00:00 INFO  entry ").append(i).append('\n');
+            if (i % 7 == 0) {
+                log.append("\tat com.iblochko.notes.Foo.bar(Foo.java:").append(i).append(")\n");
+            }
+        }
+        Path file = write(log.toString());
+
+        LogMatches matches = scanner.scan(file, List.of(new LogRange(0, Files.size(file))),
+                PREFIX);
+
+        String expected = log.toString().lines()
+                .filter(line -> line.startsWith("2023-05-15"))
+                .collect(Collectors.joining("\n"));
+        assertEquals(expected, copy(file, matches, 0, matches.size()));
+    }
+
+    @Test
+    void scan_ShouldOnlyReadGivenRanges() throws IOException {
+        String first = "2023-05-15 10:00:00 INFO  first\n";
+        String skipped = "2023-05-15 11:00:00 INFO  skipped\n";
+        String last = "2023-05-15 12:00:00 INFO  last";
+        Path file = write(first + skipped + last);
+        long lastStart = first.length() + skipped.length();
+
+        LogMatches matches = scanner.scan(file, List.of(new LogRange(0, first.length()),
+                new LogRange(lastStart, lastStart + last.length())), PREFIX);
+
+        assertEquals(2, matches.size());
+        assertEquals(first.strip() + "\n" + last, copy(file, matches, 0, 2));
+        assertEquals(last, copy(file, matches, 1, 2));
+    }
+
+    @Test
+    void scan_ShouldStripCarriageReturns_AndIgnoreShortLines() throws IOException {
+        Path file = write("2023-05-15 a\r\n2023-05\r\n2023-05-15 b\r\n");
+
+        LogMatches matches = scanner.scan(file, List.of(new LogRange(0, Files.size(file))),
+                PREFIX);
+
+        assertEquals("2023-05-15 a\n2023-05-15 b", copy(file, matches, 0, matches.size()));
+    }
+
+    private Path write(String text) throws IOException {
+        Path file = tempDir.resolve("app.log");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private String copy(Path file, LogMatches matches, int from, int to) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LogLines.page(file, matches, from, to - from).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,42 @@
+package com.iblochko.notes.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHittersTest {
+
+    @Test
+    void top_ShouldReturnMostFrequentKeys_InDescendingOrder() {
+        HeavyHitters heavyHitters = new HeavyHitters(10, 2048, 4);
+        for (int i = 0; i < 10_000; i++) {
+            heavyHitters.add("/notes/" + i);
+            if (i % 10 == 0) {
+                heavyHitters.add("/notes/hot");
+            }
+            if (i % 20 == 0) {
+                heavyHitters.add("/tags/warm");
+            }
+        }
+
+        List<Map.Entry<String, Long>> top = heavyHitters.top(2);
+
+        assertEquals("/notes/hot", top.get(0).getKey());
+        assertTrue(top.get(0).getValue() >= 1000);
+        assertEquals("/tags/warm", top.get(1).getKey());
+        assertTrue(top.get(1).getValue() >= 500);
+    }
+
+    @Test
+    void top_ShouldKeepAtMostCapacityKeys() {
+        HeavyHitters heavyHitters = new HeavyHitters(5, 256, 4);
+        for (int i = 0; i < 1000; i++) {
+            heavyHitters.add("/users/" + i);
+        }
+
+        assertTrue(heavyHitters.top(100).size() <= 5);
+    }
+}
@@ -0,0 +1,36 @@
+package com.iblochko.notes.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate_ShouldBeExact_ForSmallCardinality() {
+        HyperLogLog hyperLogLog = new HyperLogLog(12);
+        for (int i = 0; i < 3; i++) {
+            hyperLogLog.add("10.0.0.1");
+            hyperLogLog.add("10.0.0.2");
+        }
+
+        assertEquals(2, hyperLogLog.estimate());
+    }
+
+    @Test
+    void estimate_ShouldStayWithinErrorBound_ForLargeCardinality() {
+        HyperLogLog hyperLogLog = new HyperLogLog(12);
+        int distinct = 100_000;
+        for (int i = 0; i < distinct; i++) {
+            hyperLogLog.add("client-" + i);
+        }
+
+        // Standard error is 1.6% at this precision; allow for three of them
+        assertEquals(distinct, hyperLogLog.estimate(), distinct * 0.05);
+    }
+
+    @Test
+    void constructor_ShouldRejectInvalidPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+    }
+}
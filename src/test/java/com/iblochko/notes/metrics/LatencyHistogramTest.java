@@ -0,0 +1,45 @@
+package com.iblochko.notes.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void indexOf_ShouldRoundTripWithinBucketPrecision() {
+        for (long value = 0; value < 10_000_000; value = value * 3 / 2 + 1) {
+            long highest = LatencyHistogram.highestValueIn(LatencyHistogram.indexOf(value));
+
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= Math.max(1, value / 32));
+        }
+    }
+
+    @Test
+    void getValueAtQuantile_ShouldReportPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5_000, histogram.getValueAtQuantile(0.5), 5_000 / 32.0);
+        assertEquals(9_900, histogram.getValueAtQuantile(0.99), 9_900 / 32.0);
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(10_000, histogram.getValueAtQuantile(1.0));
+        assertEquals(10_000L * 10_001 / 2, histogram.getSum());
+    }
+
+    @Test
+    void reset_ShouldClearCounts() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getSum());
+        assertEquals(0, histogram.getValueAtQuantile(0.5));
+    }
+}
@@ -0,0 +1,56 @@
+package com.iblochko.notes.metrics;
+
+import com.iblochko.notes.dto.LatencyStatsDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyTrackerTest {
+
+    @Test
+    void getLatencies_ShouldSplitByRouteAndStatus() {
+        LatencyTracker tracker = new LatencyTracker();
+        tracker.record("/notes/{id}", 200, 2_000_000);
+        tracker.record("/notes/{id}", 200, 4_000_000);
+        tracker.record("/notes/{id}", 404, 1_000_000);
+
+        List<LatencyStatsDto> latencies = tracker.getLatencies();
+
+        assertEquals(2, latencies.size());
+        LatencyStatsDto ok = latencies.stream()
+                .filter(stats -> stats.getStatus() == 200).findFirst().orElseThrow();
+        assertEquals(2, ok.getCount());
+        assertEquals(4.0, ok.getMax());
+    }
+
+    @Test
+    void rotate_ShouldKeepPreviousIntervalForOneMoreRotation() {
+        LatencyTracker tracker = new LatencyTracker();
+        tracker.record("/tags", 200, 1_000_000);
+
+        tracker.rotate();
+        assertEquals(1, tracker.getLatencies().get(0).getCount());
+
+        tracker.rotate();
+        assertTrue(tracker.getLatencies().isEmpty());
+    }
+
+    @Test
+    void forEachHistogram_ShouldKeepCountAndSumAcrossRotations() {
+        LatencyTracker tracker = new LatencyTracker();
+        tracker.record("/tags", 200, 1_000_000);
+        tracker.rotate();
+        tracker.rotate();
+        tracker.record("/tags", 200, 3_000_000);
+        List<String> totals = new ArrayList<>();
+
+        tracker.forEachHistogram((route, status, histogram, totalCount, totalMicros) ->
+                totals.add(route + " " + histogram.getCount() + " " + totalCount + " "
+                        + totalMicros));
+
+        assertEquals(List.of("/tags 1 2 4000"), totals);
+    }
+}
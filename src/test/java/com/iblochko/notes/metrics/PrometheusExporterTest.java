@@ -0,0 +1,86 @@
+package com.iblochko.notes.metrics;
+
+import com.iblochko.notes.service.impl.VisitorCounterServiceImpl;
+import com.iblochko.notes.util.CacheUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrometheusExporterTest {
+
+    @Mock
+    private CacheUtil cacheUtil;
+
+    private VisitorCounterServiceImpl visitorCounterService;
+    private RequestRateTracker requestRateTracker;
+    private VisitorSketchTracker visitorSketchTracker;
+    private LatencyTracker latencyTracker;
+    private PrometheusExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        visitorCounterService = new VisitorCounterServiceImpl();
+        requestRateTracker = new RequestRateTracker();
+        visitorSketchTracker = new VisitorSketchTracker(12, 10, 256, 4);
+        latencyTracker = new LatencyTracker();
+        exporter = new PrometheusExporter(visitorCounterService, requestRateTracker,
+                visitorSketchTracker, latencyTracker, cacheUtil);
+    }
+
+    @Test
+    void write_ShouldExportAllSeriesInTextFormat() {
+        visitorCounterService.registerVisit("/notes/{id}");
+        visitorCounterService.registerVisit("/notes/{id}");
+        requestRateTracker.record("/notes/{id}");
+        visitorSketchTracker.record("/notes/{id}", "/notes/1", "10.0.0.1");
+        latencyTracker.record("/notes/{id}", 200, 2_000_000);
+        doAnswer(invocation -> {
+            CacheUtil.RegionStatsConsumer consumer = invocation.getArgument(0);
+            consumer.accept("note", 3, 10, 4, 1);
+            return null;
+        }).when(cacheUtil).forEachRegionStats(any());
+
+        String metrics = write();
+
+        assertTrue(metrics.contains("# TYPE notes_http_requests_total counter\n"));
+        assertTrue(metrics.contains("notes_http_requests_total{route=\"/notes/{id}\"} 2\n"));
+        assertTrue(metrics.contains(
+                "notes_http_request_rate{route=\"/notes/{id}\",window=\"1m\"}"));
+        assertTrue(metrics.contains("notes_http_unique_clients{route=\"/notes/{id}\"} 1\n"));
+        assertTrue(metrics.contains("notes_http_request_duration_seconds"
+                + "{route=\"/notes/{id}\",status=\"200\",quantile=\"0.99\"} 0.002"));
+        assertTrue(metrics.contains("notes_http_request_duration_seconds_count"
+                + "{route=\"/notes/{id}\",status=\"200\"} 1\n"));
+        assertTrue(metrics.contains("notes_http_request_duration_seconds_sum"
+                + "{route=\"/notes/{id}\",status=\"200\"} 2.0\n"));
+        assertTrue(metrics.contains(
+                "notes_cache_requests_total{region=\"note\",result=\"hit\"} 10\n"));
+        assertTrue(metrics.contains("notes_cache_evictions_total{region=\"note\"} 1\n"));
+        assertTrue(metrics.contains("notes_cache_size{region=\"note\"} 3\n"));
+    }
+
+    @Test
+    void write_ShouldEscapeLabelValues() {
+        visitorCounterService.registerVisit("/a\"b\\c");
+
+        String metrics = write();
+
+        assertTrue(metrics.contains("notes_http_requests_total{route=\"/a\\\"b\\\\c\"} 1\n"));
+    }
+
+    private String write() {
+        StringWriter buffer = new StringWriter();
+        exporter.write(new PrintWriter(buffer));
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package com.iblochko.notes.metrics;
+
+import com.iblochko.notes.dto.RouteRateDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestRateTrackerTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private RequestRateTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new RequestRateTracker(clock::get);
+    }
+
+    @Test
+    void getRates_ShouldAverageOverEachWindow() {
+        for (int i = 0; i < 60; i++) {
+            tracker.record("/notes/{id}");
+        }
+        clock.addAndGet(120);
+        for (int i = 0; i < 30; i++) {
+            tracker.record("/notes/{id}");
+        }
+
+        RouteRateDto rates = tracker.getRates("/notes/{id}");
+
+        assertEquals(0.5, rates.getOneMinuteRate(), 1e-9);
+        assertEquals(90.0 / 300, rates.getFiveMinuteRate(), 1e-9);
+        assertEquals(90.0 / 900, rates.getFifteenMinuteRate(), 1e-9);
+    }
+
+    @Test
+    void getRates_ShouldDropBucketsOlderThanWindow() {
+        tracker.record("/tags");
+        clock.addAndGet(900);
+
+        RouteRateDto rates = tracker.getRates("/tags");
+
+        assertEquals(0, rates.getFifteenMinuteRate());
+    }
+
+    @Test
+    void getRates_ShouldReturnZero_WhenRouteNotVisited() {
+        RouteRateDto rates = tracker.getRates("/unknown");
+
+        assertEquals("/unknown", rates.getRoute());
+        assertEquals(0, rates.getOneMinuteRate());
+    }
+
+    @Test
+    void getAllRates_ShouldReturnEveryRoute() {
+        tracker.record("/notes");
+        tracker.record("/tags");
+
+        List<RouteRateDto> rates = tracker.getAllRates();
+
+        assertEquals(2, rates.size());
+    }
+
+    @Test
+    void concurrentRecord_ShouldNotLoseCounts() throws InterruptedException {
+        final int threadCount = 32;
+        final int visitsPerThread = 1000;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch endLatch = new CountDownLatch(threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            executorService.submit(() -> {
+                for (int j = 0; j < visitsPerThread; j++) {
+                    tracker.record("/notes");
+                }
+                endLatch.countDown();
+            });
+        }
+        endLatch.await();
+        executorService.shutdown();
+
+        assertEquals((double) threadCount * visitsPerThread / 60,
+                tracker.getRates("/notes").getOneMinuteRate(), 1e-9);
+    }
+}
@@ -0,0 +1,176 @@
+package com.iblochko.notes.metrics;
+
+import com.iblochko.notes.dto.VisitPointDto;
+import com.iblochko.notes.service.impl.VisitorCounterServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VisitHistoryStoreTest {
+
+    private static final Instant START = Instant.parse("2025-03-01T10:58:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong clock = new AtomicLong(START.toEpochMilli());
+    private VisitorCounterServiceImpl visitorCounterService;
+    private VisitHistoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        visitorCounterService = new VisitorCounterServiceImpl();
+        store = new VisitHistoryStore(visitorCounterService, tempDir,
+                Map.of(VisitHistoryStore.Resolution.MINUTE, Duration.ofDays(7)), clock::get);
+    }
+
+    @Test
+    void tick_ShouldAppendVisitsPerMinute_AfterBaseline() throws IOException {
+        visitorCounterService.registerVisit("/notes");
+        store.tick();
+        visit("/notes", 3);
+        advanceMinutes(1);
+        store.tick();
+        visit("/notes", 2);
+        advanceMinutes(1);
+        store.tick();
+
+        List<VisitPointDto> points = store.getHistory("/notes",
+                VisitHistoryStore.Resolution.MINUTE, START, START.plusSeconds(3600));
+
+        assertEquals(2, points.size());
+        assertEquals(Instant.parse("2025-03-01T10:58:00Z"), points.get(0).getTimestamp());
+        assertEquals(3, points.get(0).getCount());
+        assertEquals(2, points.get(1).getCount());
+    }
+
+    @Test
+    void tick_ShouldRollUpHoursAndDays() throws IOException {
+        clock.set(Instant.parse("2025-03-01T23:58:00Z").toEpochMilli());
+        store.tick();
+        visit("/tags", 4);
+        advanceMinutes(1);
+        store.tick();
+        visit("/tags", 5);
+        advanceMinutes(1);
+        store.tick();
+        advanceMinutes(1);
+        store.tick();
+
+        List<VisitPointDto> hours = store.getHistory("/tags", VisitHistoryStore.Resolution.HOUR,
+                Instant.parse("2025-03-01T00:00:00Z"), Instant.parse("2025-03-02T23:00:00Z"));
+        List<VisitPointDto> days = store.getHistory("/tags", VisitHistoryStore.Resolution.DAY,
+                Instant.parse("2025-03-01T00:00:00Z"), Instant.parse("2025-03-02T00:00:00Z"));
+
+        assertEquals(1, hours.size());
+        assertEquals(Instant.parse("2025-03-01T23:00:00Z"), hours.get(0).getTimestamp());
+        assertEquals(9, hours.get(0).getCount());
+        assertEquals(1, days.size());
+        assertEquals(9, days.get(0).getCount());
+    }
+
+    @Test
+    void tick_ShouldRollUpPeriodsClosedWhileStopped_OnFirstTickAfterRestart()
+            throws IOException {
+        clock.set(Instant.parse("2025-03-01T22:58:00Z").toEpochMilli());
+        store.tick();
+        visit("/tags", 4);
+        advanceMinutes(1);
+        store.tick();
+        visit("/tags", 2);
+        advanceMinutes(1);
+        store.tick();
+        visit("/tags", 5);
+        advanceMinutes(2);
+        store.tick();
+
+        clock.set(Instant.parse("2025-03-02T08:30:00Z").toEpochMilli());
+        VisitHistoryStore restarted = new VisitHistoryStore(new VisitorCounterServiceImpl(),
+                tempDir, Map.of(), clock::get);
+        restarted.loadRoutes();
+        restarted.tick();
+        restarted.tick();
+
+        List<VisitPointDto> hours = restarted.getHistory("/tags",
+                VisitHistoryStore.Resolution.HOUR, Instant.parse("2025-03-01T00:00:00Z"),
+                Instant.parse("2025-03-02T23:00:00Z"));
+        List<VisitPointDto> days = restarted.getHistory("/tags",
+                VisitHistoryStore.Resolution.DAY, Instant.parse("2025-03-01T00:00:00Z"),
+                Instant.parse("2025-03-02T00:00:00Z"));
+
+        assertEquals(2, hours.size());
+        assertEquals(Instant.parse("2025-03-01T22:00:00Z"), hours.get(0).getTimestamp());
+        assertEquals(6, hours.get(0).getCount());
+        assertEquals(Instant.parse("2025-03-01T23:00:00Z"), hours.get(1).getTimestamp());
+        assertEquals(5, hours.get(1).getCount());
+        assertEquals(1, days.size());
+        assertEquals(11, days.get(0).getCount());
+    }
+
+    @Test
+    void getHistory_ShouldFilterByRouteAndRange() throws IOException {
+        store.tick();
+        visit("/notes", 1);
+        visit("/users", 7);
+        advanceMinutes(1);
+        store.tick();
+
+        assertEquals(7, store.getHistory("/users", VisitHistoryStore.Resolution.MINUTE,
+                START, START).get(0).getCount());
+        assertTrue(store.getHistory("/users", VisitHistoryStore.Resolution.MINUTE,
+                START.plusSeconds(60), START.plusSeconds(600)).isEmpty());
+        assertTrue(store.getHistory("/unknown", VisitHistoryStore.Resolution.MINUTE,
+                START, START).isEmpty());
+    }
+
+    @Test
+    void loadRoutes_ShouldKeepRouteIdsAcrossRestarts() throws IOException {
+        store.tick();
+        visit("/notes", 2);
+        advanceMinutes(1);
+        store.tick();
+
+        VisitHistoryStore restarted = new VisitHistoryStore(new VisitorCounterServiceImpl(),
+                tempDir, Map.of(), clock::get);
+        restarted.loadRoutes();
+
+        assertEquals(2, restarted.getHistory("/notes", VisitHistoryStore.Resolution.MINUTE,
+                START, START).get(0).getCount());
+    }
+
+    @Test
+    void tick_ShouldDeletePartitionsPastRetention() throws IOException {
+        store.tick();
+        visit("/notes", 1);
+        advanceMinutes(1);
+        store.tick();
+        assertTrue(Files.exists(tempDir.resolve("minute-2025-03-01.dat")));
+
+        clock.addAndGet(Duration.ofDays(10).toMillis());
+        visit("/notes", 1);
+        store.tick();
+
+        assertFalse(Files.exists(tempDir.resolve("minute-2025-03-01.dat")));
+    }
+
+    private void visit(String route, int times) {
+        for (int i = 0; i < times; i++) {
+            visitorCounterService.registerVisit(route);
+        }
+    }
+
+    private void advanceMinutes(int minutes) {
+        clock.addAndGet(minutes * 60_000L);
+    }
+}
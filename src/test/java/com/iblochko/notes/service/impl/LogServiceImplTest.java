@@ -12,14 +12,19 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -128,6 +133,56 @@ public class LogServiceImplTest {
         assertEquals("No logs found for date: 2023-05-15", result);
     }
 
+    @Test
+    void getLogsForDate_WithArchivedDay_ShouldReadCompressedArchive() throws IOException {
+        Path archive = tempDir.resolve("application.2023-04-01.log.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            out.write(("2023-04-01 10:00:00 INFO  Archived entry\r\n"
+                    + "java.lang.IllegalStateException: boom\n"
+                    + "2023-04-01 23:59:59 INFO  Last archived entry").getBytes());
+        }
+
+        String result = logService.getLogsForDate(LocalDate.of(2023, 4, 1));
+
+        assertEquals("2023-04-01 10:00:00 INFO  Archived entry\n"
+                + "2023-04-01 23:59:59 INFO  Last archived entry", result);
+        assertTrue(logService.getLogsForDate(LocalDate.of(2023, 5, 15)).contains("10:30:45"));
+    }
+
+    @Test
+    void getLogsForDate_WithDayLoggedBeforeRotation_ShouldReadFirstLaterArchive()
+            throws IOException {
+        Path firstRollover = tempDir.resolve("application.2023-04-30.log.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(firstRollover))) {
+            out.write(("2023-03-02 08:00:00 INFO  Logged before rotation\n"
+                    + "2023-04-30 22:00:00 INFO  Last day before rotation\n").getBytes());
+        }
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(
+                tempDir.resolve("application.2023-05-01.log.gz")))) {
+            out.write("2023-05-01 09:00:00 INFO  First rotated day\n".getBytes());
+        }
+
+        assertEquals("2023-03-02 08:00:00 INFO  Logged before rotation",
+                logService.getLogsForDate(LocalDate.of(2023, 3, 2)));
+        assertEquals("No logs found for date: 2023-03-03",
+                logService.getLogsForDate(LocalDate.of(2023, 3, 3)));
+        assertEquals(firstRollover,
+                LogServiceImpl.preRotationArchive(logFile, LocalDate.of(2023, 3, 3)));
+        // Before the first logged day, and on days with their own archive or after it,
+        // no archive is decompressed
+        assertNull(LogServiceImpl.preRotationArchive(logFile, LocalDate.of(2023, 3, 1)));
+        assertNull(LogServiceImpl.preRotationArchive(logFile, LocalDate.of(2023, 4, 30)));
+        assertNull(LogServiceImpl.preRotationArchive(logFile, LocalDate.of(2023, 5, 20)));
+    }
+
+    @Test
+    void archiveFor_ShouldFollowRollingFilePattern() {
+        Path archive = LogServiceImpl.archiveFor(Path.of("logs", "notes-app.log"),
+                LocalDate.of(2023, 5, 15), ".gz");
+
+        assertEquals(Path.of("logs", "notes-app.2023-05-15.log.gz"), archive);
+    }
+
     @Test
     void createLogTask_ShouldReturnTaskId() {
 
@@ -196,6 +251,127 @@ public class LogServiceImplTest {
         assertTrue(fileContentStr.contains(taskId));
     }
 
+    @Test
+    void getLogFilePath_ShouldReturnArtifact_UntilItIsDeleted()
+            throws IOException, InterruptedException {
+        String taskId = logService.createLogTask("Path content", LocalDate.now());
+        assertEquals(LogService.LogTask.Status.COMPLETED, awaitFinished(taskId).getStatus());
+
+        Path path = logService.getLogFilePath(taskId);
+
+        assertNotNull(path);
+        assertTrue(Files.readString(path).contains("Path content"));
+        Files.delete(path);
+        assertNull(logService.getLogFilePath(taskId));
+        assertNull(logService.getLogFilePath("non-existent-task"));
+    }
+
+    @Test
+    void sweepTasks_ShouldForgetExpiredTasks_AndDeleteTheirArtifacts() throws InterruptedException {
+        String taskId = logService.createLogTask("Expiring content", LocalDate.now());
+        LogService.LogTask task = awaitFinished(taskId);
+        assertEquals(LogService.LogTask.Status.COMPLETED, task.getStatus());
+        File artifact = new File(task.getFilePath());
+        assertTrue(artifact.exists());
+
+        ReflectionTestUtils.setField(logService, "taskTtl", Duration.ZERO);
+        Thread.sleep(10);
+        logService.sweepTasks();
+
+        assertNull(logService.getTaskStatus(taskId));
+        assertFalse(artifact.exists());
+    }
+
+    @Test
+    void createLogTask_ShouldEvictOldestFinishedTask_WhenTaskLimitIsReached()
+            throws InterruptedException {
+        ReflectionTestUtils.setField(logService, "taskLimit", 2);
+        String first = logService.createLogTask("first", LocalDate.now());
+        File firstArtifact = new File(awaitFinished(first).getFilePath());
+        String second = logService.createLogTask("second", LocalDate.now());
+        awaitFinished(second);
+
+        String third = logService.createLogTask("third", LocalDate.now());
+        awaitFinished(third);
+
+        assertNull(logService.getTaskStatus(first));
+        assertFalse(firstArtifact.exists());
+        assertNotNull(logService.getTaskStatus(second));
+        assertNotNull(logService.getTaskStatus(third));
+    }
+
+    @Test
+    void createLogTask_ShouldFail_WhenArtifactWouldExceedLimit() throws InterruptedException {
+        ReflectionTestUtils.setField(logService, "artifactLimitBytes", 10L);
+
+        LogService.LogTask task = awaitFinished(
+                logService.createLogTask("Too large", LocalDate.of(2023, 5, 15)));
+
+        assertEquals(LogService.LogTask.Status.FAILED, task.getStatus());
+        assertNull(task.getFilePath());
+    }
+
+    @Test
+    void createLogTask_ShouldFail_WhenRunningExportsReservedTheArtifactLimit()
+            throws InterruptedException {
+        ReflectionTestUtils.setField(logService, "artifactLimitBytes", 1000L);
+        AtomicLong artifactBytes =
+                (AtomicLong) ReflectionTestUtils.getField(logService, "artifactBytes");
+        artifactBytes.set(950);
+
+        LogService.LogTask rejected = awaitFinished(
+                logService.createLogTask("Rejected", LocalDate.of(2023, 5, 15)));
+
+        assertEquals(LogService.LogTask.Status.FAILED, rejected.getStatus());
+        assertEquals(950, artifactBytes.get());
+
+        artifactBytes.set(0);
+        LogService.LogTask accepted = awaitFinished(
+                logService.createLogTask("Accepted", LocalDate.of(2023, 5, 15)));
+
+        assertEquals(LogService.LogTask.Status.COMPLETED, accepted.getStatus());
+        assertEquals(accepted.getFileSize(), artifactBytes.get());
+    }
+
+    @Test
+    void createLogTask_ShouldKeepArtifactsWithinLimit_WhenExportsRunConcurrently()
+            throws InterruptedException {
+        ReflectionTestUtils.setField(logService, "artifactLimitBytes", 300L);
+        List<LogService.LogTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(logService.getTaskStatus(
+                    logService.createLogTask("Concurrent " + i, LocalDate.of(2023, 5, 15))));
+        }
+        for (LogService.LogTask task : tasks) {
+            // Tasks that completed early may already be evicted to make room for later ones
+            for (int i = 0; i < 100 && !task.getStatus().isFinished(); i++) {
+                Thread.sleep(100);
+            }
+        }
+
+        long kept = 0;
+        for (LogService.LogTask task : tasks) {
+            if (logService.getTaskStatus(task.getId()) != null
+                    && task.getStatus() == LogService.LogTask.Status.COMPLETED) {
+                assertTrue(Files.exists(Path.of(task.getFilePath())));
+                kept += task.getFileSize();
+            }
+        }
+
+        assertTrue(kept > 0);
+        assertTrue(kept <= 300, "kept " + kept + " bytes");
+        assertEquals(kept,
+                ((AtomicLong) ReflectionTestUtils.getField(logService, "artifactBytes")).get());
+    }
+
+    private LogService.LogTask awaitFinished(String taskId) throws InterruptedException {
+        LogService.LogTask task = logService.getTaskStatus(taskId);
+        for (int i = 0; i < 100 && !task.getStatus().isFinished(); i++) {
+            Thread.sleep(100);
+        }
+        return task;
+    }
+
     @Test
     void getLogFile_ShouldReturnNull_WhenTaskDoesNotExist() throws IOException {
         byte[] result = logService.getLogFile("non-existent-task");
@@ -1,5 +1,9 @@
 package com.iblochko.notes.service.impl;
 
+import com.iblochko.notes.cache.CachedJson;
+import com.iblochko.notes.cache.CachedNote;
+import com.iblochko.notes.cache.NoteJsonSerializer;
+import com.iblochko.notes.cache.OffHeapContentStore;
 import com.iblochko.notes.dto.NoteDto;
 import com.iblochko.notes.exception.BadRequestException;
 import com.iblochko.notes.exception.ResourceNotFoundException;
@@ -11,6 +15,7 @@ import com.iblochko.notes.repository.NoteRepository;
 import com.iblochko.notes.repository.TagRepository;
 import com.iblochko.notes.repository.UserRepository;
 import com.iblochko.notes.util.CacheUtil;
+import com.iblochko.notes.util.ETagUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +25,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -43,6 +49,18 @@ class NoteServiceImplTest {
     @Mock
     private CacheUtil cacheUtil;
 
+    @Mock
+    private CacheUtil.IdCache<CachedNote> noteCache;
+
+    @Mock
+    private CacheUtil.IdCache<CachedJson> noteJsonCache;
+
+    @Mock
+    private OffHeapContentStore contentStore;
+
+    @Mock
+    private NoteJsonSerializer noteJsonSerializer;
+
     @InjectMocks
     private NoteServiceImpl noteService;
 
@@ -97,7 +115,8 @@ class NoteServiceImplTest {
         assertEquals(testNoteDto.getTitle(), result.getTitle());
         verify(noteRepository).save(any(Note.class));
         verify(tagRepository).save(any(Tag.class));
-        verify(cacheUtil).evict(anyString());
+        verify(cacheUtil).evict("note_" + testNote.getId());
+        verify(cacheUtil).evict("user_" + testUser.getUsername());
     }
 
     @Test
@@ -169,7 +188,8 @@ class NoteServiceImplTest {
         assertNotNull(result);
         verify(noteRepository).save(any(Note.class));
         verify(tagRepository, never()).save(any(Tag.class));
-        verify(cacheUtil).evict(anyString());
+        verify(cacheUtil).evict("note_" + testNote.getId());
+        verify(cacheUtil).evict("user_" + testUser.getUsername());
     }
 
     @Test
@@ -297,7 +317,9 @@ class NoteServiceImplTest {
 
     @Test
     void findNoteById_FromCache_Success() {
-        when(cacheUtil.get(anyString(), eq(Note.class))).thenReturn(testNote);
+        when(cacheUtil.notes()).thenReturn(noteCache);
+        when(noteCache.getOrLoad(anyLong(), any(), any()))
+                .thenReturn(CachedNote.of(testNote, contentStore));
 
         Note result = noteService.findNoteById(1L);
 
@@ -308,7 +330,9 @@ class NoteServiceImplTest {
 
     @Test
     void findNoteById_FromRepository_Success() {
-        when(cacheUtil.get(anyString(), eq(Note.class))).thenReturn(null);
+        when(cacheUtil.notes()).thenReturn(noteCache);
+        when(noteCache.getOrLoad(anyLong(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<CachedNote>>getArgument(1).get());
         when(noteRepository.findById(anyLong())).thenReturn(Optional.of(testNote));
 
         Note result = noteService.findNoteById(1L);
@@ -316,17 +340,68 @@ class NoteServiceImplTest {
         assertNotNull(result);
         assertEquals(testNote.getId(), result.getId());
         verify(noteRepository).findById(anyLong());
-        verify(cacheUtil).put(anyString(), any(Note.class));
+        verify(noteCache).getOrLoad(anyLong(), any(), any());
     }
 
     @Test
     void findNoteById_NotFound_ThrowsResourceNotFoundException() {
-        when(cacheUtil.get(anyString(), eq(Note.class))).thenReturn(null);
+        when(cacheUtil.notes()).thenReturn(noteCache);
+        when(noteCache.getOrLoad(anyLong(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<CachedNote>>getArgument(1).get());
         when(noteRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> noteService.findNoteById(1L));
     }
 
+    @Test
+    void findNoteById_OffHeapContentEvicted_ReloadsNote() {
+        when(cacheUtil.notes()).thenReturn(noteCache);
+        when(noteCache.getOrLoad(anyLong(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<CachedNote>>getArgument(1).get());
+        when(noteRepository.findById(1L)).thenReturn(Optional.of(testNote));
+        when(contentStore.accepts(anyInt())).thenReturn(true);
+        when(contentStore.put(any(byte[].class))).thenReturn(7L);
+        when(contentStore.get(7L)).thenReturn(null, "Test Content".getBytes());
+
+        Note result = noteService.findNoteById(1L);
+
+        assertEquals("Test Content", result.getContent());
+        assertEquals(testNote.getTitle(), result.getTitle());
+        verify(noteCache).remove(eq(1L), any(CachedNote.class));
+        verify(noteCache, never()).evict(anyLong());
+        verify(cacheUtil, never()).evict(anyString());
+        verify(noteRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void getNoteEtag_ShouldUseCachedMetadata() {
+        when(cacheUtil.notes()).thenReturn(noteCache);
+        when(noteCache.getOrLoad(anyLong(), any(), any()))
+                .thenReturn(CachedNote.of(testNote, contentStore));
+
+        String etag = noteService.getNoteEtag(1L);
+
+        assertEquals(ETagUtil.forNote(testNote), etag);
+        verify(noteRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getNoteJson_OnMiss_ShouldSerializeNote() {
+        CachedJson json = new CachedJson(new byte[]{'{', '}'}, null, "\"1\"");
+        when(cacheUtil.noteJson()).thenReturn(noteJsonCache);
+        when(noteJsonCache.getOrLoad(eq(1L), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<CachedJson>>getArgument(1).get());
+        when(cacheUtil.notes()).thenReturn(noteCache);
+        when(noteCache.getOrLoad(eq(1L), any(), any()))
+                .thenReturn(CachedNote.of(testNote, contentStore));
+        when(noteJsonSerializer.serialize(any(Note.class))).thenReturn(json);
+
+        CachedJson result = noteService.getNoteJson(1L);
+
+        assertSame(json, result);
+        verify(noteJsonSerializer).serialize(argThat(note -> note.getId().equals(1L)));
+    }
+
     @Test
     void findNoteByTagName_Success() {
         when(tagRepository.findByName(anyString())).thenReturn(Optional.of(testTag));
@@ -21,6 +21,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -44,6 +45,9 @@ class TagServiceImplTest {
     @Mock
     private CacheUtil cacheUtil;
 
+    @Mock
+    private CacheUtil.IdCache<Tag> tagCache;
+
     @InjectMocks
     private TagServiceImpl tagService;
 
@@ -100,7 +104,8 @@ class TagServiceImplTest {
     @Test
     void getTagById_FromCache_Success() {
 
-        when(cacheUtil.get(anyString(), eq(Tag.class))).thenReturn(testTag);
+        when(cacheUtil.tags()).thenReturn(tagCache);
+        when(tagCache.getOrLoad(anyLong(), any())).thenReturn(testTag);
 
 
         Tag result = tagService.getTagById(1L);
@@ -114,7 +119,9 @@ class TagServiceImplTest {
     @Test
     void getTagById_FromRepository_Success() {
 
-        when(cacheUtil.get(anyString(), eq(Tag.class))).thenReturn(null);
+        when(cacheUtil.tags()).thenReturn(tagCache);
+        when(tagCache.getOrLoad(anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Tag>>getArgument(1).get());
         when(tagRepository.findById(anyLong())).thenReturn(Optional.of(testTag));
 
 
@@ -124,13 +131,15 @@ class TagServiceImplTest {
         assertNotNull(result);
         assertEquals(testTag.getId(), result.getId());
         verify(tagRepository).findById(anyLong());
-        verify(cacheUtil).put(anyString(), any(Tag.class));
+        verify(tagCache).getOrLoad(anyLong(), any());
     }
 
     @Test
     void getTagById_NotFound_ThrowsResourceNotFoundException() {
 
-        when(cacheUtil.get(anyString(), eq(Tag.class))).thenReturn(null);
+        when(cacheUtil.tags()).thenReturn(tagCache);
+        when(tagCache.getOrLoad(anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Tag>>getArgument(1).get());
         when(tagRepository.findById(anyLong())).thenReturn(Optional.empty());
 
 
@@ -154,7 +163,8 @@ class TagServiceImplTest {
         assertEquals(testTagDto.getName(), result.getName());
         verify(tagRepository).save(any(Tag.class));
         verify(noteRepository).save(any(Note.class));
-        verify(cacheUtil).evict(anyString());
+        verify(cacheUtil).evict("tag_" + testTag.getId());
+        verify(cacheUtil).evict("note_" + testNote.getId());
     }
 
     @Test
@@ -256,7 +266,8 @@ class TagServiceImplTest {
         assertNotNull(result);
         verify(tagRepository).save(any(Tag.class));
         verify(noteRepository).save(any(Note.class));
-        verify(cacheUtil).evict(anyString());
+        verify(cacheUtil).evict("tag_" + testTag.getId());
+        verify(cacheUtil).evict("note_" + testNote.getId());
     }
 
     @Test
@@ -22,10 +22,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +48,9 @@ public class UserServiceImplTest {
     @Mock
     private CacheUtil cacheUtil;
 
+    @Mock
+    private CacheUtil.NamedCache<User> userCache;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -100,14 +105,15 @@ public class UserServiceImplTest {
     void getUserByUsername_WithCachedUser_ShouldReturnCachedUser() {
 
         String username = "testuser";
-        when(cacheUtil.get("user_" + username, User.class)).thenReturn(testUser);
+        when(cacheUtil.users()).thenReturn(userCache);
+        when(userCache.getOrLoad(eq(username), any(), any())).thenReturn(testUser);
 
 
         User result = userService.getUserByUsername(username);
 
 
         assertEquals(testUser, result);
-        verify(cacheUtil, times(1)).get("user_" + username, User.class);
+        verify(userCache, times(1)).getOrLoad(eq(username), any(), any());
         verify(userRepository, never()).findByUsername(anyString());
     }
 
@@ -115,7 +121,9 @@ public class UserServiceImplTest {
     void getUserByUsername_WithoutCachedUser_ShouldFetchFromRepository() {
 
         String username = "testuser";
-        when(cacheUtil.get("user_" + username, User.class)).thenReturn(null);
+        when(cacheUtil.users()).thenReturn(userCache);
+        when(userCache.getOrLoad(eq(username), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<User>>getArgument(1).get());
         when(userRepository.findByUsername(username)).thenReturn(Optional.of(testUser));
 
 
@@ -123,23 +131,24 @@ public class UserServiceImplTest {
 
 
         assertEquals(testUser, result);
-        verify(cacheUtil, times(1)).get("user_" + username, User.class);
+        verify(userCache, times(1)).getOrLoad(eq(username), any(), any());
         verify(userRepository, times(1)).findByUsername(username);
-        verify(cacheUtil, times(1)).put("user_" + username, testUser);
     }
 
     @Test
     void getUserByUsername_UserNotFound_ShouldThrowException() {
 
         String username = "nonexistent";
-        when(cacheUtil.get("user_" + username, User.class)).thenReturn(null);
+        when(cacheUtil.users()).thenReturn(userCache);
+        when(userCache.getOrLoad(eq(username), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<User>>getArgument(1).get());
         when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
 
 
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> userService.getUserByUsername(username));
 
         assertEquals("User with name nonexistent not found", exception.getMessage());
-        verify(cacheUtil, times(1)).get("user_" + username, User.class);
+        verify(userCache, times(1)).getOrLoad(eq(username), any(), any());
         verify(userRepository, times(1)).findByUsername(username);
     }
 
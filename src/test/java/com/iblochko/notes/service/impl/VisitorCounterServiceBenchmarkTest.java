@@ -0,0 +1,87 @@
+package com.iblochko.notes.service.impl;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contention benchmark for visit counting, excluded from the default build.
+ * Run it with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class VisitorCounterServiceBenchmarkTest {
+
+    private static final int THREADS = 64;
+    private static final int VISITS_PER_THREAD = 200_000;
+    private static final double MIN_CONTENDED_RATIO = 0.5;
+    private static final String[] URLS = {"/notes", "/notes/1", "/tags", "/users", "/logs"};
+
+    @Test
+    void registerVisit_ShouldKeepThroughputUnderContention(TestReporter reporter)
+            throws InterruptedException {
+        VisitorCounterServiceImpl visitorCounterService = new VisitorCounterServiceImpl();
+        // Warm up so the JIT has compiled the hot path before timing
+        run(visitorCounterService, THREADS, VISITS_PER_THREAD / 10);
+        visitorCounterService = new VisitorCounterServiceImpl();
+
+        long singleThreaded = run(new VisitorCounterServiceImpl(), 1, VISITS_PER_THREAD);
+        long contended = run(visitorCounterService, THREADS, VISITS_PER_THREAD);
+
+        long visits = (long) THREADS * VISITS_PER_THREAD;
+        // Visits per millisecond, i.e. thousands per second
+        double singleThroughput = (double) VISITS_PER_THREAD / singleThreaded;
+        double contendedThroughput = (double) visits / contended;
+        reporter.publishEntry("1 thread",
+                String.format("%.1f M visits/s", singleThroughput / 1000));
+        reporter.publishEntry(THREADS + " threads",
+                String.format("%.1f M visits/s", contendedThroughput / 1000));
+
+        assertEquals(visits, visitorCounterService.getTotalVisitCount());
+        long sumOfUrlVisits = visitorCounterService.getAllStats().values().stream()
+                .mapToLong(Long::longValue).sum();
+        assertEquals(visits, sumOfUrlVisits);
+        // A shared lock or a hot CAS loop would drop the total well below one thread's rate
+        assertTrue(contendedThroughput >= MIN_CONTENDED_RATIO * singleThroughput,
+                "Throughput under contention fell to " + contendedThroughput / singleThroughput
+                        + " of a single thread");
+    }
+
+    private static long run(VisitorCounterServiceImpl service, int threads, int visitsPerThread)
+            throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            final int threadIndex = i;
+            executorService.submit(() -> {
+                try {
+                    startLatch.await();
+                    for (int j = 0; j < visitsPerThread; j++) {
+                        service.registerVisit(URLS[(threadIndex + j) % URLS.length]);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    endLatch.countDown();
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        endLatch.await();
+        long elapsed = System.nanoTime() - start;
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        return TimeUnit.NANOSECONDS.toMillis(elapsed) + 1;
+    }
+}
@@ -0,0 +1,134 @@
+package com.iblochko.notes.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VisitorCounterSnapshotServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() {
+        snapshotFile = tempDir.resolve("stats").resolve("visitor-counters.bin");
+    }
+
+    @Test
+    void snapshot_ThenRestore_ShouldPreserveCounters() {
+        VisitorCounterServiceImpl counters = new VisitorCounterServiceImpl();
+        counters.registerVisit("/notes/{id}");
+        counters.registerVisit("/notes/{id}");
+        counters.registerVisit("/tags");
+        snapshotService(counters).snapshot();
+
+        VisitorCounterServiceImpl restored = new VisitorCounterServiceImpl();
+        restored.registerVisit("/tags");
+        snapshotService(restored).restore();
+
+        assertEquals(2, restored.getVisitCount("/notes/{id}"));
+        assertEquals(2, restored.getVisitCount("/tags"));
+        assertEquals(4, restored.getTotalVisitCount());
+    }
+
+    @Test
+    void snapshot_WithUrlLongerThan64Kb_ShouldPreserveIt() {
+        String longUrl = "/notes?q=" + "x".repeat(70 * 1024);
+        VisitorCounterServiceImpl counters = new VisitorCounterServiceImpl();
+        counters.registerVisit(longUrl);
+        counters.registerVisit("/tags");
+        snapshotService(counters).snapshot();
+
+        VisitorCounterServiceImpl restored = new VisitorCounterServiceImpl();
+        snapshotService(restored).restore();
+
+        assertEquals(1, restored.getVisitCount(longUrl));
+        assertEquals(1, restored.getVisitCount("/tags"));
+        assertEquals(2, restored.getTotalVisitCount());
+    }
+
+    @Test
+    void restore_WithFirstFormatFile_ShouldReadModifiedUtf8Urls() throws IOException {
+        Files.createDirectories(snapshotFile.getParent());
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(
+                new CheckedOutputStream(Files.newOutputStream(snapshotFile), crc))) {
+            out.writeInt(0x56435331);
+            out.writeLong(3);
+            out.writeInt(1);
+            out.writeUTF("/tags");
+            out.writeLong(3);
+            out.writeLong(crc.getValue());
+        }
+
+        VisitorCounterServiceImpl restored = new VisitorCounterServiceImpl();
+        snapshotService(restored).restore();
+
+        assertEquals(3, restored.getVisitCount("/tags"));
+        assertEquals(3, restored.getTotalVisitCount());
+    }
+
+    @Test
+    void snapshot_WhenMoveFails_ShouldDeleteTempFile() throws IOException {
+        // A non-empty directory in place of the snapshot cannot be replaced
+        Files.createDirectories(snapshotFile.resolve("blocker"));
+        VisitorCounterServiceImpl counters = new VisitorCounterServiceImpl();
+        counters.registerVisit("/tags");
+
+        snapshotService(counters).snapshot();
+
+        try (Stream<Path> files = Files.list(snapshotFile.getParent())) {
+            assertEquals(List.of(snapshotFile), files.toList());
+        }
+    }
+
+    @Test
+    void snapshot_WithoutVisits_ShouldNotWriteFile() {
+        snapshotService(new VisitorCounterServiceImpl()).snapshot();
+
+        assertFalse(Files.exists(snapshotFile));
+    }
+
+    @Test
+    void restore_WithCorruptFile_ShouldStartEmpty() throws IOException {
+        VisitorCounterServiceImpl counters = new VisitorCounterServiceImpl();
+        counters.registerVisit("/notes");
+        snapshotService(counters).snapshot();
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        bytes[bytes.length - 9] ^= 1;
+        Files.write(snapshotFile, bytes);
+
+        VisitorCounterServiceImpl restored = new VisitorCounterServiceImpl();
+        snapshotService(restored).restore();
+
+        assertEquals(0, restored.getTotalVisitCount());
+    }
+
+    @Test
+    void restore_WithoutSnapshotFile_ShouldStartEmpty() {
+        VisitorCounterServiceImpl restored = new VisitorCounterServiceImpl();
+
+        assertDoesNotThrow(() -> snapshotService(restored).restore());
+        assertEquals(0, restored.getTotalVisitCount());
+    }
+
+    private VisitorCounterSnapshotService snapshotService(VisitorCounterServiceImpl counters) {
+        VisitorCounterSnapshotService service = new VisitorCounterSnapshotService(counters);
+        ReflectionTestUtils.setField(service, "snapshotFile", snapshotFile.toString());
+        return service;
+    }
+}
@@ -0,0 +1,526 @@
+package com.iblochko.notes.util;
+
+import com.iblochko.notes.cache.CacheInvalidationBus;
+import com.iblochko.notes.cache.CachedJson;
+import com.iblochko.notes.cache.CachedNote;
+import com.iblochko.notes.config.CacheProperties;
+import com.iblochko.notes.exception.ResourceNotFoundException;
+import com.iblochko.notes.model.Note;
+import com.iblochko.notes.model.Tag;
+import com.iblochko.notes.model.User;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheUtilTest {
+
+    private CacheUtil cacheUtil;
+
+    @BeforeEach
+    void setUp() {
+        cacheUtil = new CacheUtil();
+    }
+
+    @Test
+    void getOrLoad_OnMiss_ShouldLoadAndCache() {
+        String result = cacheUtil.getOrLoad("note_1", String.class, () -> "loaded");
+
+        assertEquals("loaded", result);
+        assertEquals("loaded", cacheUtil.get("note_1", String.class));
+    }
+
+    @Test
+    void getOrLoad_OnHit_ShouldNotCallLoader() {
+        cacheUtil.put("note_1", "cached");
+
+        String result = cacheUtil.getOrLoad("note_1", String.class, () -> {
+            throw new AssertionError("loader must not run on a hit");
+        });
+
+        assertEquals("cached", result);
+    }
+
+    @Test
+    void getOrLoad_WhenLoaderThrows_ShouldPropagateAndNotCache() {
+        assertThrows(ResourceNotFoundException.class, () ->
+                cacheUtil.getOrLoad("note_1", String.class, () -> {
+                    throw new ResourceNotFoundException("Note with id 1 not found");
+                }));
+
+        assertNull(cacheUtil.get("note_1", String.class));
+    }
+
+    @Test
+    void getOrLoad_WhenValueNotCacheable_ShouldReturnWithoutCaching() {
+        String result = cacheUtil.getOrLoad("note_json_1", String.class, () -> "large",
+                value -> value.length() < 3, value -> List.of());
+
+        assertEquals("large", result);
+        assertNull(cacheUtil.get("note_json_1", String.class));
+    }
+
+    @Test
+    void getOrLoad_ConcurrentMisses_ShouldRunLoaderOnce() throws Exception {
+        final int threadCount = 32;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch loaderEntered = new CountDownLatch(1);
+        final CountDownLatch releaseLoader = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            results.add(executorService.submit(() -> {
+                startLatch.await();
+                return cacheUtil.getOrLoad("note_1", String.class, () -> {
+                    loads.incrementAndGet();
+                    loaderEntered.countDown();
+                    try {
+                        releaseLoader.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "loaded";
+                });
+            }));
+        }
+
+        startLatch.countDown();
+        assertTrue(loaderEntered.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        releaseLoader.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+        }
+        executorService.shutdown();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getOrLoad_ConcurrentMisses_ShouldShareLoaderException() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        final CountDownLatch loaderEntered = new CountDownLatch(1);
+        final CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        Future<?> leader = executorService.submit(() -> cacheUtil.getOrLoad("tag_1",
+                String.class, () -> {
+                    loaderEntered.countDown();
+                    try {
+                        releaseLoader.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new ResourceNotFoundException("Tag with id 1 not found");
+                }));
+        assertTrue(loaderEntered.await(5, TimeUnit.SECONDS));
+
+        Future<?> follower = executorService.submit(() -> cacheUtil.getOrLoad("tag_1",
+                String.class, () -> "second load"));
+        Thread.sleep(100);
+        releaseLoader.countDown();
+
+        Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ResourceNotFoundException.class, leaderError.getCause());
+        try {
+            follower.get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            assertInstanceOf(ResourceNotFoundException.class, e.getCause());
+        }
+        executorService.shutdown();
+    }
+
+    @Test
+    void evict_DuringLoad_ShouldNotCacheStaleValue() {
+        String result = cacheUtil.getOrLoad("user_test", String.class, () -> {
+            cacheUtil.evict("user_test");
+            return "stale";
+        });
+
+        assertEquals("stale", result);
+        assertNull(cacheUtil.get("user_test", String.class));
+    }
+
+    @Test
+    void evict_ShouldCascadeToDependentEntries() {
+        cacheUtil.getOrLoad("tag_1", String.class, () -> "tag");
+        cacheUtil.getOrLoad("tag_2", String.class, () -> "other tag");
+        cacheUtil.getOrLoad("note_1", String.class, () -> "note", value -> List.of("tag_1"));
+        cacheUtil.getOrLoad("note_2", String.class, () -> "note", value -> List.of("tag_2"));
+        cacheUtil.getOrLoad("note_json_1", String.class, () -> "{}",
+                value -> List.of("note_1"));
+        cacheUtil.getOrLoad("user_test", String.class, () -> "user",
+                value -> List.of("note_1", "note_2"));
+
+        cacheUtil.evict("tag_1");
+
+        assertNull(cacheUtil.get("tag_1", String.class));
+        assertNull(cacheUtil.get("note_1", String.class));
+        assertNull(cacheUtil.get("note_json_1", String.class));
+        assertNull(cacheUtil.get("user_test", String.class));
+        assertEquals("other tag", cacheUtil.get("tag_2", String.class));
+        assertEquals("note", cacheUtil.get("note_2", String.class));
+    }
+
+    @Test
+    void evict_WithCyclicDependencies_ShouldTerminate() {
+        cacheUtil.getOrLoad("note_1", String.class, () -> "note", value -> List.of("user_test"));
+        cacheUtil.getOrLoad("user_test", String.class, () -> "user", value -> List.of("note_1"));
+
+        cacheUtil.evict("user_test");
+
+        assertNull(cacheUtil.get("note_1", String.class));
+        assertNull(cacheUtil.get("user_test", String.class));
+    }
+
+    @Test
+    void put_WhenRegionFull_ShouldEvictLeastRecentlyUsedOfThatRegionOnly() {
+        AtomicLong clock = new AtomicLong();
+        CacheProperties properties = new CacheProperties();
+        CacheProperties.Region tagRegion = new CacheProperties.Region();
+        tagRegion.setCapacity(2);
+        properties.getRegions().put("tag", tagRegion);
+        CacheUtil regionCache = new CacheUtil(properties, clock::get);
+
+        regionCache.put("note_1", "note");
+        regionCache.put("tag_1", "first");
+        clock.set(1);
+        regionCache.put("tag_2", "second");
+        clock.set(2);
+        regionCache.get("tag_1", String.class);
+        clock.set(3);
+        regionCache.put("tag_3", "third");
+
+        assertEquals("first", regionCache.get("tag_1", String.class));
+        assertNull(regionCache.get("tag_2", String.class));
+        assertEquals("third", regionCache.get("tag_3", String.class));
+        assertEquals("note", regionCache.get("note_1", String.class));
+        regionCache.shutdown();
+    }
+
+    @Test
+    void forEachRegionStats_ShouldCountHitsMissesAndEvictions() {
+        CacheProperties properties = new CacheProperties();
+        CacheProperties.Region tagRegion = new CacheProperties.Region();
+        tagRegion.setCapacity(1);
+        properties.getRegions().put("tag", tagRegion);
+        CacheUtil regionCache = new CacheUtil(properties, System::nanoTime);
+        regionCache.put("tag_1", "first");
+        regionCache.get("tag_1", String.class);
+        regionCache.tags().get(2);
+        regionCache.put("tag_2", "second");
+        List<String> stats = new ArrayList<>();
+
+        regionCache.forEachRegionStats((region, size, hits, misses, evictions) ->
+                stats.add(region + ":" + size + "/" + hits + "/" + misses + "/" + evictions));
+
+        assertTrue(stats.contains("tag:1/1/1/1"));
+        assertTrue(stats.contains("note:0/0/0/0"));
+        regionCache.shutdown();
+    }
+
+    @Test
+    void put_WithKeyThatIsNoValidId_ShouldUseGenericRegion() {
+        cacheUtil.put("note_-", "dash");
+        cacheUtil.put("note_99999999999999999999", "overflow");
+        cacheUtil.put("note_9223372036854775807", "max");
+        List<String> regions = new ArrayList<>();
+
+        cacheUtil.forEachRegionStats((region, size, hits, misses, evictions) ->
+                regions.add(region + ":" + size));
+
+        assertEquals("dash", cacheUtil.get("note_-", String.class));
+        assertEquals("overflow", cacheUtil.get("note_99999999999999999999", String.class));
+        assertEquals("max", cacheUtil.get("note_9223372036854775807", String.class));
+        assertTrue(regions.contains("default:2"));
+        assertTrue(regions.contains("note:1"));
+    }
+
+    @Test
+    void typedViews_ShouldShareEntriesWithQualifiedKeys() {
+        CachedJson json = new CachedJson(new byte[0], null, "\"1\"");
+        User user = new User();
+        cacheUtil.put("note_json_1", json);
+        cacheUtil.put("user_korol_pelmeney", user);
+
+        assertSame(json, cacheUtil.noteJson().get(1L));
+        assertSame(user, cacheUtil.users().get("korol_pelmeney"));
+        assertNull(cacheUtil.notes().get(1L));
+        assertEquals("note_json_1", cacheUtil.noteJson().key(1L));
+
+        cacheUtil.noteJson().evict(1L);
+
+        assertNull(cacheUtil.get("note_json_1", CachedJson.class));
+    }
+
+    @Test
+    void remove_ShouldDropOnlyThatEntryWithoutPublishing() {
+        List<Collection<String>> published = new ArrayList<>();
+        CacheUtil busCache = new CacheUtil(new CacheProperties(), new CacheInvalidationBus() {
+            @Override
+            public void publish(Collection<String> keys) {
+                published.add(keys);
+            }
+
+            @Override
+            public void subscribe(Consumer<Collection<String>> listener) {
+            }
+        }, System::nanoTime);
+        CachedNote note = CachedNote.of(new Note(), null);
+        busCache.notes().getOrLoad(1L, () -> note);
+        busCache.getOrLoad("note_json_1", String.class, () -> "{}", value -> List.of("note_1"));
+        busCache.getOrLoad("user_test", String.class, () -> "user", value -> List.of("note_1"));
+
+        assertFalse(busCache.notes().remove(1L, CachedNote.of(new Note(), null)));
+        assertTrue(busCache.notes().remove(1L, note));
+
+        assertNull(busCache.notes().get(1L));
+        assertEquals("{}", busCache.get("note_json_1", String.class));
+        assertEquals("user", busCache.get("user_test", String.class));
+        assertTrue(published.isEmpty());
+
+        // Dependents are still linked to the note for a later data change
+        busCache.notes().evict(1L);
+
+        assertNull(busCache.get("note_json_1", String.class));
+        assertNull(busCache.get("user_test", String.class));
+        busCache.shutdown();
+    }
+
+    @Test
+    void typedGetOrLoad_ShouldRecordDependencies() {
+        Tag tag = new Tag();
+        cacheUtil.tags().getOrLoad(1L, () -> tag);
+        cacheUtil.getOrLoad("note_1", String.class, () -> "note", value -> List.of("tag_1"));
+
+        cacheUtil.tags().evict(1L);
+
+        assertNull(cacheUtil.tags().get(1L));
+        assertNull(cacheUtil.get("note_1", String.class));
+    }
+
+    @Test
+    void get_AfterTtl_ShouldExpireEntry() {
+        AtomicLong clock = new AtomicLong();
+        CacheUtil ttlCache = new CacheUtil(propertiesWithNoteTtl(), clock::get);
+        ttlCache.put("note_1", "value");
+        ttlCache.put("tag_1", "value");
+
+        clock.set(Duration.ofSeconds(11).toNanos());
+
+        assertNull(ttlCache.get("note_1", String.class));
+        assertEquals("value", ttlCache.get("tag_1", String.class));
+        ttlCache.shutdown();
+    }
+
+    @Test
+    void get_AfterTtl_ShouldUseTheTtlOfTheEntrysRegion() {
+        AtomicLong clock = new AtomicLong();
+        CacheProperties properties = propertiesWithNoteTtl();
+        properties.getTtl().put("note_json", Duration.ofSeconds(30));
+        CacheUtil ttlCache = new CacheUtil(properties, clock::get);
+        ttlCache.put("note_1", "value");
+        ttlCache.put("note_json_1", "json");
+
+        clock.set(Duration.ofSeconds(11).toNanos());
+        assertNull(ttlCache.get("note_1", String.class));
+        assertEquals("json", ttlCache.get("note_json_1", String.class));
+
+        clock.set(Duration.ofSeconds(31).toNanos());
+        assertNull(ttlCache.get("note_json_1", String.class));
+        ttlCache.shutdown();
+    }
+
+    @Test
+    void get_NearExpiry_ShouldRefreshInBackgroundAndServeOldValue() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        CacheUtil ttlCache = new CacheUtil(propertiesWithNoteTtl(), clock::get);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch refreshed = new CountDownLatch(1);
+
+        assertEquals("v1", ttlCache.getOrLoad("note_1", String.class, () -> {
+            int load = loads.incrementAndGet();
+            if (load > 1) {
+                refreshed.countDown();
+            }
+            return "v" + load;
+        }));
+
+        clock.set(Duration.ofSeconds(9).toNanos());
+        assertEquals("v1", ttlCache.get("note_1", String.class));
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 50 && !"v2".equals(ttlCache.get("note_1", String.class)); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals("v2", ttlCache.get("note_1", String.class));
+        assertEquals(2, loads.get());
+        ttlCache.shutdown();
+    }
+
+    @Test
+    void refresh_AfterEvict_ShouldNotResurrectEntry() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        CacheUtil ttlCache = new CacheUtil(propertiesWithNoteTtl(), clock::get);
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch releaseRefresh = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        ttlCache.getOrLoad("note_1", String.class, () -> {
+            if (loads.incrementAndGet() > 1) {
+                refreshStarted.countDown();
+                try {
+                    releaseRefresh.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "value";
+        });
+
+        clock.set(Duration.ofSeconds(9).toNanos());
+        ttlCache.get("note_1", String.class);
+        assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+        ttlCache.evict("note_1");
+        releaseRefresh.countDown();
+        Thread.sleep(100);
+
+        assertNull(ttlCache.get("note_1", String.class));
+        ttlCache.shutdown();
+    }
+
+    @Test
+    void refresh_ShouldLoadLazyAssociationsInsideReadOnlyTransaction()
+            throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        CacheProperties properties = new CacheProperties();
+        properties.getTtl().put("user", Duration.ofSeconds(10));
+        properties.setRefreshAheadFactor(0.8);
+        CacheUtil ttlCache = new CacheUtil(properties, null, new TestTransactionManager(),
+                clock::get);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger readOnlyLoads = new AtomicInteger();
+        CountDownLatch refreshed = new CountDownLatch(1);
+        Supplier<User> loader = () -> {
+            if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                readOnlyLoads.incrementAndGet();
+            }
+            User user = new User();
+            user.setUsername("user" + loads.incrementAndGet());
+            Note note = new Note();
+            note.setId(1L);
+            user.setNotes(new LazyList<>(List.of(note)));
+            return user;
+        };
+        Function<User, List<String>> dependencies = user -> {
+            List<String> keys = user.getNotes().stream()
+                    .map(note -> "note_" + note.getId())
+                    .toList();
+            if (loads.get() > 1) {
+                refreshed.countDown();
+            }
+            return keys;
+        };
+        // The first load runs in the request's session
+        new TransactionTemplate(new TestTransactionManager()).executeWithoutResult(status ->
+                ttlCache.users().getOrLoad("user", loader, dependencies));
+
+        clock.set(Duration.ofSeconds(9).toNanos());
+        assertEquals("user1", ttlCache.users().get("user").getUsername());
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50
+                && !"user2".equals(ttlCache.users().get("user").getUsername()); i++) {
+            Thread.sleep(20);
+        }
+
+        User user = ttlCache.users().get("user");
+        assertEquals("user2", user.getUsername());
+        assertEquals(1, user.getNotes().size());
+        assertEquals(1, readOnlyLoads.get());
+        ttlCache.evict("note_1");
+        assertNull(ttlCache.users().get("user"));
+        ttlCache.shutdown();
+    }
+
+    private static CacheProperties propertiesWithNoteTtl() {
+        CacheProperties properties = new CacheProperties();
+        properties.getTtl().put("note", Duration.ofSeconds(10));
+        properties.setRefreshAheadFactor(0.8);
+        return properties;
+    }
+
+    /**
+     * Stands in for a Hibernate collection: it can only be initialized inside a transaction
+     * and stays readable once it is.
+     */
+    private static final class LazyList<E> extends AbstractList<E> {
+        private final List<E> elements;
+        private boolean initialized;
+
+        private LazyList(List<E> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public E get(int index) {
+            initialize();
+            return elements.get(index);
+        }
+
+        @Override
+        public int size() {
+            initialize();
+            return elements.size();
+        }
+
+        private void initialize() {
+            if (!initialized && !TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw new LazyInitializationException("could not initialize proxy - no Session");
+            }
+            initialized = true;
+        }
+    }
+
+    private static final class TestTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
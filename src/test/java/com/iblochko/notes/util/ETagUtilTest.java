@@ -0,0 +1,83 @@
+package com.iblochko.notes.util;
+
+import com.iblochko.notes.model.Note;
+import com.iblochko.notes.model.Tag;
+import com.iblochko.notes.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagUtilTest {
+
+    private static Note note(long id, LocalDateTime updatedAt, Tag... tags) {
+        Note note = new Note();
+        note.setId(id);
+        note.setUpdatedAt(updatedAt);
+        note.setTags(new ArrayList<>(List.of(tags)));
+        return note;
+    }
+
+    private static Tag tag(long id, long version) {
+        Tag tag = new Tag();
+        tag.setId(id);
+        tag.setVersion(version);
+        return tag;
+    }
+
+    @Test
+    void forNote_ShouldChangeWithUpdatedAtAndTagVersions() {
+        LocalDateTime time = LocalDateTime.of(2025, 4, 17, 10, 30);
+
+        String base = ETagUtil.forNote(note(1, time, tag(1, 0)));
+
+        assertEquals(base, ETagUtil.forNote(note(1, time, tag(1, 0))));
+        assertNotEquals(base, ETagUtil.forNote(note(1, time.plusNanos(1000), tag(1, 0))));
+        assertNotEquals(base, ETagUtil.forNote(note(1, time, tag(1, 1))));
+        assertNotEquals(base, ETagUtil.forNote(note(1, time)));
+        assertTrue(base.startsWith("\"") && base.endsWith("\""));
+    }
+
+    @Test
+    void forUser_ShouldChangeWhenEmbeddedNoteChanges() {
+        LocalDateTime time = LocalDateTime.of(2025, 4, 17, 10, 30);
+        User user = new User();
+        user.setUsername("alice");
+        user.setVersion(2L);
+        user.setNotes(new ArrayList<>(List.of(note(1, time))));
+
+        String before = ETagUtil.forUser(user);
+        user.getNotes().get(0).setUpdatedAt(time.plusSeconds(1));
+
+        assertNotEquals(before, ETagUtil.forUser(user));
+    }
+
+    @Test
+    void forTag_ShouldDifferFromNoteWithSameId() {
+        assertNotEquals(ETagUtil.forTag(tag(1, 0)), ETagUtil.forNote(note(1, null)));
+    }
+
+    @Test
+    void matches_ShouldHandleListsWildcardAndWeakTags() {
+        String etag = "\"abc\"";
+
+        assertTrue(ETagUtil.matches("\"abc\"", etag));
+        assertTrue(ETagUtil.matches("\"x\", W/\"abc\"", etag));
+        assertTrue(ETagUtil.matches("*", etag));
+        assertFalse(ETagUtil.matches("\"abd\"", etag));
+        assertFalse(ETagUtil.matches(null, etag));
+    }
+
+    @Test
+    void forGzip_ShouldGiveEncodedVariantItsOwnStrongTag() {
+        String etag = ETagUtil.forNote(note(1, null));
+        String gzipEtag = ETagUtil.forGzip(etag);
+
+        assertEquals(etag.substring(0, etag.length() - 1) + "-gz\"", gzipEtag);
+        assertFalse(ETagUtil.matches(etag, gzipEtag));
+        assertTrue(ETagUtil.matches("W/" + gzipEtag, gzipEtag));
+    }
+}
@@ -0,0 +1,46 @@
+package com.iblochko.notes.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileTransferUtilTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void send_ShouldCopyRange_WhenSendfileIsUnsupported() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("log.txt"), "0123456789abcdef");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileTransferUtil.send(new MockHttpServletRequest("GET", "/"), response, file, 3, 11);
+
+        assertEquals(8, response.getContentLengthLong());
+        assertEquals("3456789a", response.getContentAsString());
+    }
+
+    @Test
+    void send_ShouldHandFileToConnector_WhenSendfileIsSupported() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("log.txt"), "0123456789abcdef");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileTransferUtil.send(request, response, file, 3, 11);
+
+        assertEquals(file.toAbsolutePath().toString(),
+                request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(3L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(11L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(8, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+}